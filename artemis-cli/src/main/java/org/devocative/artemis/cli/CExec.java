@@ -2,6 +2,11 @@ package org.devocative.artemis.cli;
 
 import org.devocative.artemis.ArtemisExecutor;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.ELogOverflow;
+import org.devocative.artemis.cfg.ERateOverflow;
+import org.devocative.artemis.cfg.Pool;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -34,12 +39,66 @@ public class CExec implements Runnable {
 	@Option(names = {"-l", "--loop"}, paramLabel = "Loop", description = "number of serial execution")
 	private Integer loop;
 
+	@Option(names = {"-t", "--duration"}, paramLabel = "Duration", description = "keep executing for this duration (e.g. 30s, 10m, 2h) instead of 'loop'")
+	private String duration;
+
 	@Option(names = {"-v", "--var"}, paramLabel = "VariablesInsideTest", split = ",", splitSynopsisLabel = "=", description = "external variables(s) passing to test")
 	private Map<String, String> vars;
 
 	@Option(names = {"-X", "--proxy"}, paramLabel = "HTTP/SocksProxy", description = "all requests passed through the proxy")
 	private String proxy;
 
+	@Option(names = {"-C", "--compile-on-load"}, description = "compile all <when> expressions before execution")
+	private Boolean compileOnLoad;
+
+	@Option(names = {"-r", "--rate"}, paramLabel = "Rate", description = "open model: start iterations at this rate per second, 'loop' as total iterations")
+	private Double rate;
+
+	@Option(names = {"-m", "--max-concurrency"}, paramLabel = "MaxConcurrency", description = "open model: max concurrent iterations (default 100)")
+	private Integer maxConcurrency;
+
+	@Option(names = {"--overflow"}, paramLabel = "Delay|Drop", description = "open model: action on reaching max concurrency (default Delay)")
+	private ERateOverflow rateOverflow;
+
+	@Option(names = {"--virtual-threads"}, description = "run each user on a virtual thread (Java 21+)")
+	private Boolean virtualThreads;
+
+	@Option(names = {"--http-version"}, paramLabel = "Http1|Http2|Negotiate", description = "HTTP version, HTTP/2 uses one shared async client (default Http1)")
+	private EHttpVersion httpVersion;
+
+	@Option(names = {"--http-engine"}, paramLabel = "Classic|Async", description = "HTTP engine: blocking client per thread, or shared non-blocking client with no thread per in-flight request (default Classic)")
+	private EHttpEngine httpEngine;
+
+	@Option(names = {"-R", "--report-interval"}, paramLabel = "Seconds", description = "print progress of load runs every N seconds, 0 to disable (default 10)")
+	private Integer reportInterval;
+
+	@Option(names = {"--export-dir"}, paramLabel = "Dir", description = "write results as JSON & CSV files in the directory, e.g. target")
+	private String exportDir;
+
+	@Option(names = {"--cache-dir"}, paramLabel = "Dir", description = "cache the parsed XML & compiled Groovy in the directory, for faster startup")
+	private String cacheDir;
+
+	@Option(names = {"--pool-max-total"}, paramLabel = "Number", description = "use one shared connection pool with this max total connections (default 200)")
+	private Integer poolMaxTotal;
+
+	@Option(names = {"--pool-max-per-route"}, paramLabel = "Number", description = "use one shared connection pool with this max connections per route (default 200)")
+	private Integer poolMaxPerRoute;
+
+	@Option(names = {"--selective-json"}, description = "parse only the asserted properties & stored paths of JSON responses, and the rest on demand")
+	private Boolean selectiveJson;
+
+	@Option(names = {"--perf-mode"}, description = "lean logging: one line per request, and the details only for the failed ones")
+	private Boolean perfMode;
+
+	@Option(names = {"--async-log"}, description = "write the log files by a background writer via a bounded queue")
+	private Boolean asyncLog;
+
+	@Option(names = {"--log-queue-size"}, paramLabel = "Number", description = "async log: size of the queue (default 8192)")
+	private Integer logQueueSize;
+
+	@Option(names = {"--log-overflow"}, paramLabel = "Block|Drop", description = "async log: action on a full queue, warnings and errors always block (default Block)")
+	private ELogOverflow logOverflow;
+
 	// ------------------------------
 
 	@Override
@@ -55,12 +114,69 @@ public class CExec implements Runnable {
 		if (loop != null) {
 			config.setLoop(loop);
 		}
+		if (!isEmpty(duration)) {
+			config.setDuration(duration);
+		}
 		if (parallel != null) {
 			config.setParallel(parallel);
 		}
 		if (!isEmpty(proxy)) {
 			config.setProxy(proxy);
 		}
+		if (compileOnLoad != null) {
+			config.setCompileOnLoad(compileOnLoad);
+		}
+		if (rate != null) {
+			config.setRate(rate);
+		}
+		if (maxConcurrency != null) {
+			config.setMaxConcurrency(maxConcurrency);
+		}
+		if (rateOverflow != null) {
+			config.setRateOverflow(rateOverflow);
+		}
+		if (virtualThreads != null) {
+			config.setVirtualThreads(virtualThreads);
+		}
+		if (httpVersion != null) {
+			config.setHttpVersion(httpVersion);
+		}
+		if (httpEngine != null) {
+			config.setHttpEngine(httpEngine);
+		}
+		if (reportInterval != null) {
+			config.setReportInterval(reportInterval);
+		}
+		if (!isEmpty(exportDir)) {
+			config.setExportDir(exportDir);
+		}
+		if (!isEmpty(cacheDir)) {
+			config.setCacheDir(cacheDir);
+		}
+		if ((poolMaxTotal != null || poolMaxPerRoute != null) && config.getPool() == null) {
+			config.setPool(new Pool());
+		}
+		if (poolMaxTotal != null) {
+			config.getPool().setMaxTotal(poolMaxTotal);
+		}
+		if (poolMaxPerRoute != null) {
+			config.getPool().setMaxPerRoute(poolMaxPerRoute);
+		}
+		if (selectiveJson != null) {
+			config.setSelectiveJson(selectiveJson);
+		}
+		if (perfMode != null) {
+			config.setPerfMode(perfMode);
+		}
+		if (asyncLog != null) {
+			config.setAsyncLog(asyncLog);
+		}
+		if (logQueueSize != null) {
+			config.setLogQueueSize(logQueueSize);
+		}
+		if (logOverflow != null) {
+			config.setLogOverflow(logOverflow);
+		}
 
 		if (vars != null) {
 			vars.forEach(config::addVar);
@@ -6,6 +6,12 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.ELogOverflow;
+import org.devocative.artemis.cfg.ERateOverflow;
+import org.devocative.artemis.cfg.Pool;
+import org.devocative.artemis.cfg.Stage;
 
 import java.io.File;
 import java.io.IOException;
@@ -48,8 +54,31 @@ public class ConfigLoader {
 			.setBaseUrl(yaml.baseUrl)
 			.setBaseDir(yaml.baseDir)
 			.setLoop(yaml.loop != null ? yaml.loop : 1)
+			.setDuration(isEmpty(yaml.duration) ? null : yaml.duration)
 			.setParallel(yaml.parallel != null ? yaml.parallel : 1)
-			.setProxy(yaml.proxy);
+			.setProxy(yaml.proxy)
+			.setCompileOnLoad(yaml.compileOnLoad != null && yaml.compileOnLoad)
+			.setRate(yaml.rate)
+			.setMaxConcurrency(yaml.maxConcurrency != null ? yaml.maxConcurrency : 100)
+			.setRateOverflow(yaml.rateOverflow != null ? yaml.rateOverflow : ERateOverflow.Delay)
+			.setVirtualThreads(yaml.virtualThreads != null && yaml.virtualThreads)
+			.setHttpVersion(yaml.httpVersion != null ? yaml.httpVersion : EHttpVersion.Http1)
+			.setHttpEngine(yaml.httpEngine != null ? yaml.httpEngine : EHttpEngine.Classic)
+			.setReportInterval(yaml.reportInterval != null ? yaml.reportInterval : 10)
+			.setExportDir(isEmpty(yaml.exportDir) ? null : yaml.exportDir)
+			.setCacheDir(isEmpty(yaml.cacheDir) ? null : yaml.cacheDir)
+			.setPool(yaml.pool)
+			.setSelectiveJson(yaml.selectiveJson != null && yaml.selectiveJson)
+			.setPerfMode(yaml.perfMode != null && yaml.perfMode)
+			.setAsyncLog(yaml.asyncLog != null && yaml.asyncLog)
+			.setLogQueueSize(yaml.logQueueSize != null ? yaml.logQueueSize : 8192)
+			.setLogOverflow(yaml.logOverflow != null ? yaml.logOverflow : ELogOverflow.Block);
+
+		if (yaml.stages != null) {
+			yaml.stages.stream()
+				.filter(stage -> !isEmpty(stage.getDuration()))
+				.forEach(stage -> config.addStage(stage.getDuration(), stage.getTarget() != null ? stage.getTarget() : 0));
+		}
 
 		if (yaml.vars != null) {
 			yaml.vars.stream()
@@ -86,7 +115,25 @@ public class ConfigLoader {
 		private String baseDir;
 		private Integer parallel;
 		private Integer loop;
+		private String duration;
 		private String proxy;
+		private Boolean compileOnLoad;
+		private Double rate;
+		private Integer maxConcurrency;
+		private ERateOverflow rateOverflow;
+		private List<Stage> stages;
+		private Boolean virtualThreads;
+		private EHttpVersion httpVersion;
+		private EHttpEngine httpEngine;
+		private Integer reportInterval;
+		private String exportDir;
+		private String cacheDir;
+		private Pool pool;
+		private Boolean selectiveJson;
+		private Boolean perfMode;
+		private Boolean asyncLog;
+		private Integer logQueueSize;
+		private ELogOverflow logOverflow;
 		private List<Var> vars;
 	}
 
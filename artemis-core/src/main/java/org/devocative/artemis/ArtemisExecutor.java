@@ -1,23 +1,40 @@
 package org.devocative.artemis;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.thoughtworks.xstream.XStream;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.ELogOverflow;
+import org.devocative.artemis.cfg.ERateOverflow;
+import org.devocative.artemis.cfg.Pool;
+import org.devocative.artemis.cfg.Stage;
+import org.devocative.artemis.ctx.ProgressReporter;
+import org.devocative.artemis.ctx.ResultExporter;
 import org.devocative.artemis.ctx.StatisticsContext;
 import org.devocative.artemis.http.*;
 import org.devocative.artemis.log.ALog;
-import org.devocative.artemis.xml.*;
-import org.devocative.artemis.xml.method.*;
-
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import org.devocative.artemis.plan.*;
+import org.devocative.artemis.xml.ERsBodyType;
+import org.devocative.artemis.xml.XArtemis;
+import org.devocative.artemis.xml.XBaseRequest;
+import org.devocative.artemis.xml.XScenario;
+import org.devocative.artemis.xml.XmlLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.devocative.artemis.EVarScope.*;
 import static org.devocative.artemis.Memory.EStep.*;
-import static org.devocative.artemis.Util.asMap;
 
 public class ArtemisExecutor {
 
@@ -35,7 +52,7 @@ public class ArtemisExecutor {
 		this.config = config;
 
 		ContextHandler.init(config);
-		this.httpFactory = new HttpFactory(config.getBaseUrl(), config.getProxy());
+		this.httpFactory = new HttpFactory(config);
 	}
 
 	public static void run() {
@@ -48,39 +65,202 @@ public class ArtemisExecutor {
 	public static void run(Config config) {
 		config.init();
 
-		ALog.init(config.getName(), config.getConsoleLog() != null ? config.getConsoleLog() : config.getDevMode() || config.getParallel() == 1);
+		if (config.getAsyncLog() && (config.getLogQueueSize() == null || config.getLogQueueSize() < 1)) {
+			throw new RuntimeException("Invalid Log Queue Size: " + config.getLogQueueSize());
+		}
+
+		ALog.init(config.getName(), config.getConsoleLog() != null ? config.getConsoleLog() : config.getDevMode() || config.getParallel() == 1,
+			config.getAsyncLog() ? config.getLogQueueSize() : 0, config.getLogOverflow() == ELogOverflow.Drop);
+		ALog.setPerfMode(config.getPerfMode() && !config.getDevMode());
 
-		new ArtemisExecutor(config).execute();
+		if (!Parallel.useVirtualThreads(config.getVirtualThreads())) {
+			ALog.warn("Virtual threads are not supported by this JVM (Java 21+), platform threads are used");
+		}
+
+		if (config.getDevMode() && config.getRate() != null) {
+			ALog.warn("Rate is ignored in DevMode");
+			config.setRate(null);
+		}
+		if (config.getDevMode() && !config.getStages().isEmpty()) {
+			ALog.warn("Stages are ignored in DevMode");
+			config.setStages(Collections.emptyList());
+		}
+		if (config.getDevMode() && config.getHttpEngine() == EHttpEngine.Async) {
+			ALog.warn("Async engine is ignored in DevMode");
+			config.setHttpEngine(EHttpEngine.Classic);
+		}
+		if (config.getDevMode() && config.getDuration() != null) {
+			ALog.warn("Duration is ignored in DevMode");
+			config.setDuration(null);
+		}
+		if (config.getDuration() != null && !config.getStages().isEmpty()) {
+			ALog.warn("Duration is ignored for stages");
+			config.setDuration(null);
+		}
+		if (config.getDuration() != null) {
+			Util.parseDuration(config.getDuration());
+		}
+		if (config.getRate() != null && !config.getStages().isEmpty()) {
+			throw new RuntimeException("Invalid Config: both 'rate' and 'stages' are defined");
+		}
+		if (config.getRate() != null && !(config.getRate() > 0 && config.getRate() <= 1_000_000_000)) {
+			throw new RuntimeException("Invalid Rate: " + config.getRate());
+		}
+		if (config.getRate() != null && (config.getMaxConcurrency() == null || config.getMaxConcurrency() < 1)) {
+			throw new RuntimeException("Invalid Max Concurrency: " + config.getMaxConcurrency());
+		}
+		for (Stage stage : config.getStages()) {
+			Util.parseDuration(stage.getDuration());
+			if (stage.getTarget() == null || stage.getTarget() < 0) {
+				throw new RuntimeException("Invalid Stage Target: " + stage);
+			}
+		}
+		// NOTE: with virtual threads, a client and a pool per user (thread) costs too much, so the shared pool is used, and
+		// the response buffers are not cached per thread
+		if (config.getVirtualThreads() && config.getHttpVersion() == EHttpVersion.Http1 && config.getHttpEngine() == EHttpEngine.Classic &&
+			config.getPool() == null) {
+			ALog.info("Virtual threads: the shared connection pool is used");
+			config.setPool(new Pool());
+		}
+		ResponseBody.usePooledBuffers(!config.getVirtualThreads());
+
+		if (config.getPool() != null) {
+			final Pool pool = config.getPool();
+			if (pool.getMaxTotal() == null || pool.getMaxTotal() < 1 || pool.getMaxPerRoute() == null || pool.getMaxPerRoute() < 1) {
+				throw new RuntimeException("Invalid Pool Size: " + pool);
+			}
+			Stream.of(pool.getIdleEviction(), pool.getTimeToLive(), pool.getKeepAlive(), pool.getValidateAfterInactivity())
+				.filter(Objects::nonNull)
+				.forEach(Util::parseDuration);
+			if (config.getHttpVersion() != EHttpVersion.Http1 || config.getHttpEngine() == EHttpEngine.Async) {
+				ALog.warn("Pool: only size, timeToLive, and validateAfterInactivity are applied to HTTP/2 and the Async engine");
+			}
+		}
+
+		try {
+			new ArtemisExecutor(config).execute();
+		} finally {
+			ALog.flush();
+		}
 	}
 
 	// ------------------------------
 
 	private void execute() {
-		final XArtemis artemis = createXArtemis();
+		final PArtemis artemis = new PlanCompiler(config).compile(createXArtemis());
 
-		final List<XScenario> scenarios = artemis.getScenarios().stream()
-			.filter(scenario -> scenario.isEnabled() &&
-				(config.getOnlyScenarios().isEmpty() ||
-					config.getOnlyScenarios().contains(scenario.getId())
-				)
-			)
-			.collect(Collectors.toList());
+		final Long duration = config.getDuration() != null ? Util.parseDuration(config.getDuration()) : null;
+		if (duration != null) {
+			ALog.info("Duration: [{}]", config.getDuration());
+		}
 
-		final Runnable runnable = () -> run(scenarios, artemis.getVars(), config.getLoop());
+		final ProgressReporter reporter = isLoadRun() && config.getReportInterval() > 0 ?
+			ProgressReporter.start(config.getName(), config.getReportInterval()) : null;
 
-		final Result result = Parallel.execute(config.getName(), config.getParallel(), runnable);
+		final ResultExporter exporter = config.getExportDir() != null ? new ResultExporter(config) : null;
+		if (exporter != null) {
+			exporter.start();
+		}
 
-		StatisticsContext.printAll();
+		final long start = System.currentTimeMillis();
+		final Result result;
+		try {
+			result = executeLoad(artemis, duration);
+		} finally {
+			if (reporter != null) {
+				reporter.stop();
+			}
+			if (exporter != null) {
+				exporter.stop();
+			}
+			httpFactory.shutdownAll();
+		}
+
+		if (exporter != null) {
+			exporter.export(start, System.currentTimeMillis());
+		}
+
+		StatisticsContext.printAll(isLoadRun());
+
+		if (config.getRate() != null) {
+			ALog.info("Open Model: started=[{}], delayed=[{}], dropped=[{}]", result.getDegree(), result.getDelayed(), result.getDropped());
+		}
+
+		if (config.getAsyncLog()) {
+			ALog.info("Async Log: dropped events=[{}]", ALog.getDroppedEvents());
+		}
 
 		if (result.hasError()) {
 			throw new TestFailedException(result.getErrors()).setDegree(result.getDegree()).setNoOfErrors(result.getNoOfErrors());
 		}
 	}
 
-	private void run(final List<XScenario> scenarios, final List<XVar> globalVars, final int loopMax) {
-		ALog.info("*---------*---------*");
-		ALog.info("|   A R T E M I S   |");
-		ALog.info(config.getDevMode() ? "*-------D E V-------*" : "*---------*---------*");
+	private boolean isLoadRun() {
+		return !config.getDevMode() &&
+			(config.getParallel() > 1 || config.getRate() != null || !config.getStages().isEmpty() || config.getDuration() != null);
+	}
+
+	private Result executeLoad(PArtemis artemis, Long duration) {
+		// NOTE: with the Async engine, each user is a chain of non-blocking steps, so no thread waits for a response
+		final boolean async = config.getHttpEngine() == EHttpEngine.Async;
+		final Result result;
+		if (config.getRate() != null) {
+			final int iterations = duration != null ? (int) Math.ceil(config.getRate() * duration / 1000.0) : config.getLoop();
+			ALog.info("Open Model: rate=[{}/sec], iterations=[{}], maxConcurrency=[{}], overflow=[{}]",
+				config.getRate(), iterations, config.getMaxConcurrency(), config.getRateOverflow());
+
+			if (async) {
+				result = Parallel.executeAtRateAsync(config.getName(), config.getRate(), iterations, config.getMaxConcurrency(),
+					config.getRateOverflow() == ERateOverflow.Drop,
+					(name, iteration, intendedStart) -> runArrivalAsync(new Continuation(name), artemis.getScenarios(), artemis.getVars(), iteration, intendedStart));
+			} else {
+				result = Parallel.executeAtRate(config.getName(), config.getRate(), iterations, config.getMaxConcurrency(),
+					config.getRateOverflow() == ERateOverflow.Drop,
+					(iteration, intendedStart) -> runArrival(artemis.getScenarios(), artemis.getVars(), iteration, intendedStart));
+			}
+		} else if (!config.getStages().isEmpty()) {
+			ALog.info("Staged Load: {}", config.getStages());
+
+			// NOTE: the workers come and go in stages, so the banner is printed once per stage instead of per worker
+			final Consumer<String> onStage = stage -> {
+				printBanner();
+				StatisticsContext.stageStarted(stage);
+			};
+			if (async) {
+				result = Parallel.executeStagedAsync(config.getName(), config.getStages(), onStage,
+					(name, active) -> runAsync(new Continuation(name), artemis.getScenarios(), artemis.getVars(), Integer.MAX_VALUE, active, false));
+			} else {
+				result = Parallel.executeStaged(config.getName(), config.getStages(), onStage,
+					active -> run(artemis.getScenarios(), artemis.getVars(), Integer.MAX_VALUE, active, false));
+			}
+		} else {
+			final int loopMax;
+			final BooleanSupplier active;
+			if (duration != null) {
+				final long deadline = System.currentTimeMillis() + duration;
+				loopMax = Integer.MAX_VALUE;
+				active = () -> System.currentTimeMillis() < deadline;
+			} else {
+				loopMax = config.getLoop();
+				active = () -> true;
+			}
+
+			if (async) {
+				result = Parallel.executeAsync(config.getName(), config.getParallel(),
+					name -> runAsync(new Continuation(name), artemis.getScenarios(), artemis.getVars(), loopMax, active, true)).join();
+			} else {
+				result = Parallel.execute(config.getName(), config.getParallel(),
+					() -> run(artemis.getScenarios(), artemis.getVars(), loopMax, active, true));
+			}
+		}
+		return result;
+	}
+
+	private void run(final List<PScenario> scenarios, final List<PParam> globalVars, final int loopMax, final BooleanSupplier active,
+					 final boolean banner) {
+		if (banner) {
+			printBanner();
+		}
 
 		ContextHandler.createContext();
 
@@ -89,53 +269,16 @@ public class ArtemisExecutor {
 		boolean successfulExec = true;
 
 		try {
-			for (; iteration < loopMax; iteration++) {
+			for (; iteration < loopMax && active.getAsBoolean(); iteration++) {
 				start = System.currentTimeMillis();
 
-				final Context ctx = ContextHandler.get();
-
-				globalVars.forEach(var -> {
-					final String value = var.getValue();
-					ctx.addVarByScope(var.getName(), value, EVarScope.Global);
-					ALog.info("%cyan(Global Var:) name=[{}] value=[{}]", var.getName(), value);
-				});
-
-				for (XScenario scenario : scenarios) {
-					final String parallel = scenario.getParallel();
-					int parallelValue = parallel != null ? Integer.parseInt(parallel) : 1;
-
-					if (parallelValue > 1) {
-						final int itr = iteration;
-						ALog.info("%purple(=============== [{} - PARALLEL] ===============)", scenario.getId());
-
-						final Runnable runnable = () -> {
-							ContextHandler.createContext(ctx);
-
-							final long startScenario = System.currentTimeMillis();
-							runScenario(scenario, itr);
-							final long duration = System.currentTimeMillis() - startScenario;
-
-							StatisticsContext.execFinished(itr, duration, "");
-							StatisticsContext.printThis(duration);
-						};
-
-						final Result result = Parallel.execute(
-							Thread.currentThread().getName() + "_" + scenario.getId(),
-							parallelValue,
-							runnable);
-						if (result.hasError()) {
-							throw new TestFailedException(result.getErrors()).setDegree(result.getDegree()).setNoOfErrors(result.getNoOfErrors());
-						}
-					} else {
-						runScenario(scenario, iteration);
-					}
-				}
+				runIteration(scenarios, globalVars, iteration);
 
 				final long duration = System.currentTimeMillis() - start;
 				if (loopMax == 1) {
 					StatisticsContext.printThis(duration);
 				} else {
-					ALog.info("%green***** [PASSED SUCCESSFULLY in {} ms, loopIdx={}] *****)", duration, iteration);
+					ALog.info("%green(***** [PASSED SUCCESSFULLY in {} ms, loopIdx={}] *****)", duration, iteration);
 				}
 
 				StatisticsContext.execFinished(iteration, duration, "");
@@ -152,76 +295,300 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void runScenario(XScenario scenario, int iteration) {
+	private void printBanner() {
+		ALog.info("*---------*---------*");
+		ALog.info("|   A R T E M I S   |");
+		ALog.info(config.getDevMode() ? "*-------D E V-------*" : "*---------*---------*");
+	}
+
+	// Open Model: each arrival is a new user with its own context
+	private void runArrival(final List<PScenario> scenarios, final List<PParam> globalVars, final int iteration, final long intendedStart) {
+		StatisticsContext.iterationScheduled(intendedStart);
+		ContextHandler.createContext();
+
+		final long start = System.currentTimeMillis();
+		boolean successfulExec = true;
+
+		try {
+			runIteration(scenarios, globalVars, iteration);
+
+			final long duration = System.currentTimeMillis() - start;
+			ALog.info("%green(***** [PASSED SUCCESSFULLY in {} ms, loopIdx={}] *****)", duration, iteration);
+			StatisticsContext.execFinished(iteration, duration, "");
+		} catch (RuntimeException e) {
+			successfulExec = false;
+			ALog.error(e.getMessage());
+			StatisticsContext.execFinished(iteration, System.currentTimeMillis() - start, e.getMessage());
+			throw e;
+		} finally {
+			ContextHandler.shutdown(successfulExec);
+		}
+	}
+
+	private void runIteration(final List<PScenario> scenarios, final List<PParam> globalVars, final int iteration) {
 		final Context ctx = ContextHandler.get();
 
-		ctx.addVarByScope(G_LOOP_VAR, iteration, Global);
+		addGlobalVars(ctx, globalVars);
 
-		ContextHandler.updateMemory(m -> m.setScenarioName(scenario.getId()));
+		for (PScenario scenario : scenarios) {
+			final PValue parallel = scenario.getParallel();
+			int parallelValue = parallel != null ? parallel.evalInt() : 1;
 
-		scenario.updateRequestsIds();
+			if (parallelValue > 1) {
+				final int itr = iteration;
+				ALog.info("%purple(=============== [{} - PARALLEL] ===============)", scenario.getId());
 
-		final String loopMaxStr = scenario.getLoop();
-		final int loopMax = loopMaxStr == null ? 1 : Integer.parseInt(loopMaxStr);
+				final Runnable runnable = () -> {
+					ContextHandler.createContext(ctx);
 
-		for (int it = 0; it < loopMax; it++) {
-			if (loopMax == 1) {
-				ALog.info("%purple(=============== [{}] ===============)", scenario.getId());
+					final long startScenario = System.currentTimeMillis();
+					runScenario(scenario, itr);
+					final long duration = System.currentTimeMillis() - startScenario;
+
+					StatisticsContext.printThis(duration);
+					StatisticsContext.execFinished(itr, duration, "");
+				};
+
+				final Result result = Parallel.execute(
+					Thread.currentThread().getName() + "_" + scenario.getId(),
+					parallelValue,
+					runnable);
+				if (result.hasError()) {
+					throw new TestFailedException(result.getErrors()).setDegree(result.getDegree()).setNoOfErrors(result.getNoOfErrors());
+				}
 			} else {
-				ALog.info("%purple(=============== [{}]_{}/{}_===============)", scenario.getId(), it + 1, loopMax);
+				runScenario(scenario, iteration);
 			}
-			scenario.getVars().forEach(v -> ctx.addVarByScope(v.getName(), v.getValue(), Scenario));
+		}
+	}
 
-			ctx.addVarByScope(LOOP_VAR, it, Scenario);
+	private void runScenario(PScenario scenario, int iteration) {
+		final int loopMax = startScenario(scenario, iteration);
 
-			if (scenario.getCall() != null && scenario.getCall()) {
-				try {
-					ctx.runAtScope(Scenario, () -> ContextHandler.invoke(scenario.getId()));
-					ALog.info("%cyan(Call Method) - '{}(Context)'", scenario.getId());
-				} catch (RuntimeException e) {
-					ALog.error("ERROR: Scenario({}) - calling method: '{}(Context)'", scenario.getId(), scenario.getId());
-					throw e;
+		for (int it = 0; it < loopMax; it++) {
+			startScenarioLoop(scenario, it, loopMax);
+
+			for (PRequest rq : scenario.getRequests()) {
+				if (startRq(rq)) {
+					sendRq(rq);
+
+					checkSleep(scenario);
+
+					finishRq();
 				}
 			}
+		}
 
-			for (XBaseRequest rq : scenario.getRequests()) {
-				ALog.info("%blue(--------------- [{}] ---------------)", rq.getId());
+		finishScenario();
+	}
 
-				ContextHandler.updateMemory(m -> m.setRqId(rq.getId()));
+	// ---------------
+
+	// Same as run(), as a chain of non-blocking steps for the Async engine
+	private CompletableFuture<Void> runAsync(final Continuation cont, final List<PScenario> scenarios, final List<PParam> globalVars,
+											 final int loopMax, final BooleanSupplier active, final boolean banner) {
+		return cont.start(() -> {
+			if (banner) {
+				printBanner();
+			}
 
-				if (!XBaseRequest.BREAK_POINT_ID.equals(rq.getId())) {
-					if (evaluateWhen(rq.getWhen())) {
-						initRq(rq);
-						sendRq(rq);
+			ContextHandler.createContext();
 
-						checkSleep(scenario);
+			return cont.loop(loopMax, active, iteration -> {
+				final long start = System.currentTimeMillis();
 
-						ContextHandler.updateMemory(Memory::clear);
-						ctx.clearVars(EVarScope.Request);
+				return runIterationAsync(cont, scenarios, globalVars, iteration).handleAsync((v, error) -> {
+					final long duration = System.currentTimeMillis() - start;
+					if (error != null) {
+						ALog.error(causeOf(error).getMessage());
+						StatisticsContext.execFinished(iteration, duration, causeOf(error).getMessage());
+						throw new CompletionException(causeOf(error));
+					}
+
+					if (loopMax == 1) {
+						StatisticsContext.printThis(duration);
 					} else {
-						final String msg = rq.getWhen().getMessage() != null ? rq.getWhen().getMessage() : "'when' is false!";
-						ALog.info("RQ SKIPPED: {}", msg);
+						ALog.info("%green(***** [PASSED SUCCESSFULLY in {} ms, loopIdx={}] *****)", duration, iteration);
 					}
-				} else if (config.getDevMode()) {
-					throw new TestFailedException("Reached Break Point!");
-				} else {
-					ALog.warn("Passing <break-point/> in Main Mode!");
+
+					StatisticsContext.execFinished(iteration, duration, "");
+					return null;
+				}, cont);
+			}).whenCompleteAsync((v, error) -> ContextHandler.shutdown(error == null), cont);
+		});
+	}
+
+	// Same as runArrival(), as a chain of non-blocking steps for the Async engine
+	private CompletableFuture<Void> runArrivalAsync(final Continuation cont, final List<PScenario> scenarios, final List<PParam> globalVars,
+													final int iteration, final long intendedStart) {
+		return cont.start(() -> {
+			StatisticsContext.iterationScheduled(intendedStart);
+			ContextHandler.createContext();
+
+			final long start = System.currentTimeMillis();
+
+			return runIterationAsync(cont, scenarios, globalVars, iteration).handleAsync((v, error) -> {
+				try {
+					final long duration = System.currentTimeMillis() - start;
+					if (error != null) {
+						ALog.error(causeOf(error).getMessage());
+						StatisticsContext.execFinished(iteration, duration, causeOf(error).getMessage());
+						throw new CompletionException(causeOf(error));
+					}
+
+					ALog.info("%green(***** [PASSED SUCCESSFULLY in {} ms, loopIdx={}] *****)", duration, iteration);
+					StatisticsContext.execFinished(iteration, duration, "");
+					return null;
+				} finally {
+					ContextHandler.shutdown(error == null);
 				}
+			}, cont);
+		});
+	}
+
+	// Same as runIteration(), and a parallel scenario runs as concurrent chains, each one with its own continuation
+	private CompletableFuture<Void> runIterationAsync(final Continuation cont, final List<PScenario> scenarios, final List<PParam> globalVars,
+													  final int iteration) {
+		final Context ctx = ContextHandler.get();
+
+		addGlobalVars(ctx, globalVars);
+
+		return cont.loop(scenarios.size(), idx -> {
+			final PScenario scenario = scenarios.get(idx);
+			final PValue parallel = scenario.getParallel();
+			int parallelValue = parallel != null ? parallel.evalInt() : 1;
+
+			if (parallelValue > 1) {
+				ALog.info("%purple(=============== [{} - PARALLEL] ===============)", scenario.getId());
+
+				return Parallel.executeAsync(cont.getName() + "_" + scenario.getId(), parallelValue, name -> {
+					final Continuation child = new Continuation(name);
+					return child.start(() -> {
+						ContextHandler.createContext(ctx);
+
+						final long startScenario = System.currentTimeMillis();
+						return runScenarioAsync(child, scenario, iteration).thenRunAsync(() -> {
+							final long duration = System.currentTimeMillis() - startScenario;
+
+							StatisticsContext.printThis(duration);
+							StatisticsContext.execFinished(iteration, duration, "");
+						}, child);
+					});
+				}).thenAcceptAsync(result -> {
+					if (result.hasError()) {
+						throw new TestFailedException(result.getErrors()).setDegree(result.getDegree()).setNoOfErrors(result.getNoOfErrors());
+					}
+				}, cont);
+			} else {
+				return runScenarioAsync(cont, scenario, iteration);
 			}
+		});
+	}
+
+	// Same as runScenario(), and the response of a request and the scenario's sleep are waited without any thread
+	private CompletableFuture<Void> runScenarioAsync(final Continuation cont, final PScenario scenario, final int iteration) {
+		final int loopMax = startScenario(scenario, iteration);
+		final List<PRequest> requests = scenario.getRequests();
+
+		return cont.loop(loopMax, it -> {
+			startScenarioLoop(scenario, it, loopMax);
+
+			return cont.loop(requests.size(), idx -> {
+				final PRequest rq = requests.get(idx);
+				if (startRq(rq)) {
+					return sendRqAsync(rq, cont)
+						.thenComposeAsync(v -> checkSleepAsync(scenario, cont), cont)
+						.thenRunAsync(this::finishRq, cont);
+				}
+				return CompletableFuture.completedFuture(null);
+			});
+		}).thenRunAsync(this::finishScenario, cont);
+	}
+
+	// ---------------
+
+	private void addGlobalVars(Context ctx, List<PParam> globalVars) {
+		globalVars.forEach(var -> {
+			final String name = var.getName().eval();
+			final String value = var.getValue().eval();
+			ctx.addVarByScope(name, value, EVarScope.Global);
+			ALog.detail("%cyan(Global Var:) name=[{}] value=[{}]", name, value);
+		});
+	}
+
+	// Returns the number of the scenario's loops
+	private int startScenario(PScenario scenario, int iteration) {
+		ContextHandler.get().addVarByScope(G_LOOP_VAR, iteration, Global);
+
+		ContextHandler.updateMemory(m -> m.setScenarioName(scenario.getId()));
+
+		final PValue loopMaxValue = scenario.getLoop();
+		return loopMaxValue == null ? 1 : loopMaxValue.evalInt();
+	}
+
+	private void startScenarioLoop(PScenario scenario, int it, int loopMax) {
+		final Context ctx = ContextHandler.get();
+
+		if (loopMax == 1) {
+			ALog.detail("%purple(=============== [{}] ===============)", scenario.getId());
+		} else {
+			ALog.detail("%purple(=============== [{}]_{}/{}_===============)", scenario.getId(), it + 1, loopMax);
 		}
+		scenario.getVars().forEach(v -> ctx.addVarByScope(v.getName().eval(), v.getValue().eval(), Scenario));
+
+		ctx.addVarByScope(LOOP_VAR, it, Scenario);
 
-		ctx.clearVars(Scenario);
+		if (scenario.isCall()) {
+			try {
+				ctx.runAtScope(Scenario, () -> ContextHandler.invoke(scenario.getId()));
+				ALog.detail("%cyan(Call Method) - '{}(Context)'", scenario.getId());
+			} catch (RuntimeException e) {
+				ALog.error("ERROR: Scenario({}) - calling method: '{}(Context)'", scenario.getId(), scenario.getId());
+				throw e;
+			}
+		}
+	}
+
+	// Returns true if the request is initialized to be sent
+	private boolean startRq(PRequest rq) {
+		ALog.detail("%blue(--------------- [{}] ---------------)", rq.getId());
+
+		ContextHandler.updateMemory(m -> m.setRqId(rq.getId()));
+
+		if (!rq.isBreakPoint()) {
+			if (evaluateWhen(rq.getWhen())) {
+				initRq(rq);
+				return true;
+			} else {
+				final String msg = rq.getWhen().getMessage() != null ? rq.getWhen().getMessage().eval() : "'when' is false!";
+				ALog.detail("RQ SKIPPED: {}", msg);
+			}
+		} else if (config.getDevMode()) {
+			throw new TestFailedException("Reached Break Point!");
+		} else {
+			ALog.warn("Passing <break-point/> in Main Mode!");
+		}
+		return false;
+	}
+
+	private void finishRq() {
+		ContextHandler.updateMemory(Memory::clear);
+		ContextHandler.get().clearVars(EVarScope.Request);
+	}
+
+	private void finishScenario() {
+		ContextHandler.get().clearVars(Scenario);
 		ContextHandler.updateMemory(Memory::clearAll);
 	}
 
-	private Boolean evaluateWhen(XWhen when) {
+	private Boolean evaluateWhen(PWhen when) {
 		if (when != null) {
-			return (Boolean) ContextHandler.evalExpr(when.getContent());
+			return (Boolean) ContextHandler.evalExpr(when.getExpression().eval());
 		}
 		return true;
 	}
 
-	private void initRq(XBaseRequest rq) {
+	private void initRq(PRequest rq) {
 		final Context ctx = ContextHandler.get();
 
 		if (ctx.containsVar(THIS, Scenario)) {
@@ -231,22 +598,22 @@ public class ArtemisExecutor {
 		ContextHandler.updateMemory(m -> m.addStep(RqVars));
 
 		int addVars = 0;
-		for (XVar var : rq.getVars()) {
-			ctx.addVarByScope(var.getName(), var.getValue(), Request);
+		for (PParam var : rq.getVars()) {
+			ctx.addVarByScope(var.getName().eval(), var.getValue().eval(), Request);
 			addVars++;
 		}
 		if (addVars > 0) {
-			ALog.info("[{}] var(s) added to context", addVars);
+			ALog.detail("[{}] var(s) added to context", addVars);
 		}
 
 		ContextHandler.updateMemory(m -> m.addStep(RqCall));
-		if (rq.getCall() != null && rq.getCall()) {
+		if (rq.isCall()) {
 			if (!rq.isWithId()) {
 				throw new TestFailedException(rq.getId(), "No id for Request to Call");
 			}
 			try {
 				ctx.runAtScope(Request, () -> ContextHandler.invoke(rq.getId()));
-				ALog.info("%cyan(Call Method) - '{}(Context)'", rq.getId());
+				ALog.detail("%cyan(Call Method) - '{}(Context)'", rq.getId());
 			} catch (RuntimeException e) {
 				ALog.error("ERROR: RQ({}) - calling method: '{}(Context)'", rq.getId(), rq.getId());
 				throw e;
@@ -254,7 +621,19 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void sendRq(XBaseRequest rq) {
+	private void sendRq(PRequest rq) {
+		sendRq(rq, (httpRq, consumer) -> {
+			httpRq.send(consumer);
+			return null;
+		});
+	}
+
+	private CompletableFuture<Void> sendRqAsync(PRequest rq, Continuation cont) {
+		return sendRq(rq, (httpRq, consumer) -> httpRq.sendAsync(consumer, cont));
+	}
+
+	// The sender sends the request, and passes the response to the consumer
+	private <T> T sendRq(PRequest rq, BiFunction<HttpRequest, Consumer<HttpResponse>, T> sender) {
 		ContextHandler.updateMemory(m -> m.addStep(RqSend));
 
 		final Context ctx = ContextHandler.get();
@@ -265,59 +644,93 @@ public class ArtemisExecutor {
 			ctx.addVarByScope(rq.getId(), rqAndRs, Scenario);
 		}
 
-		final HttpRequestData data = new HttpRequestData(rq.getId(), rq.getUrl(), rq.getMethod().name());
-		data.setHeaders(asMap(rq.getHeaders()));
+		final String url = rq.getUrl().eval();
+		final HttpRequestData data = new HttpRequestData(rq.getId(), url, rq.getMethod().name());
 
-		final XBody body = rq.getBody();
+		final Map<String, CharSequence> headers = new HashMap<>();
+		rq.getHeaders().forEach(header -> headers.put(header.getName().eval(), header.getValue().eval()));
+		data.setHeaders(headers);
+
+		final PValue body = rq.getBody();
 		if (body != null) {
-			data.setBody(body.getContent().trim());
-			rqAndRs.put("oRq", body.getContent().trim());
+			final String content = body.eval().trim();
+			data.setBody(content);
+			rqAndRs.put("oRq", content);
 		}
 
-		if (rq.getForm() != null) {
-			data.setFormFields(rq.getForm().stream().map(x -> new FormField(x.getName(), x.getValue(), x.isFile())).collect(Collectors.toList()));
+		if (!rq.getForm().isEmpty()) {
+			final List<FormField> fields = new ArrayList<>();
+			rq.getForm().forEach(field -> fields.add(new FormField(field.getName().eval(), field.getValue().eval(), field.isFile())));
+			data.setFormFields(fields);
 		}
 
+		final List<NameValuePair> urlParams = new ArrayList<>();
+		rq.getUrlParams().forEach(param -> urlParams.add(new BasicNameValuePair(param.getName().eval(), param.getValue().eval())));
+
 		ContextHandler.getAspects().callBeforeSend(data);
 
-		final HttpRequest httpRq = httpFactory.create(rq);
+		final HttpRequest httpRq = httpFactory.create(rq, url, urlParams);
 		httpRq.setHeaders(data.getHeaders());
 		if (data.getBody() != null) {
 			httpRq.setBody(data.getBody().toString());
 		}
 		httpRq.setFormParams(data.getFormFields());
-		httpRq.send(rs -> processRs(rs, rq, rqAndRs));
-	}
 
-	private void processRs(HttpResponse rs, XBaseRequest rq, Map<String, Object> rqAndRs) {
+		// NOTE: evaluated before sending, since the body is hashed while reading
+		final String[] checksum = rq.getAssertRs() != null && rq.getAssertRs().getChecksum() != null ?
+			rq.getAssertRs().getChecksum().eval().trim().split(":", 2) : null;
+		if (checksum != null && checksum.length != 2) {
+			throw new TestFailedException(rq.getId(), "Invalid Checksum: expected 'ALGORITHM:HEX'");
+		}
+		httpRq.setRsBody(rq.getAssertRs() != null && rq.getAssertRs().getBody() == ERsBodyType.discard,
+			checksum != null ? checksum[0] : null);
 
+		return sender.apply(httpRq, rs -> processRs(rs, rq, rqAndRs, checksum != null ? checksum[1] : null));
+	}
+
+	private void processRs(HttpResponse rs, PRequest rq, Map<String, Object> rqAndRs, String expectedChecksum) {
+		final PAssertRs assertRs;
 		if (rq.getAssertRs() == null) {
 			ALog.warn("RQ({}) - No <assertRs/>!", rq.getId());
-			rq.setAssertRs(new XAssertRs());
+			assertRs = PAssertRs.DEFAULT;
+		} else {
+			assertRs = rq.getAssertRs();
 		}
 
-		final XAssertRs assertRs = rq.getAssertRs();
-		if (assertRs.getBody() == null) {
-			assertRs.setBody(ERsBodyType.json);
-		}
-		assertCode(rq, rs);
+		assertCode(rq, assertRs, rs);
 
-		if (assertRs.getProperties() != null && assertRs.getBody() != ERsBodyType.json) {
-			throw new TestFailedException(rq.getId(), "Invalid <assertRs/> Definition: properties defined for non-json body");
+		if (expectedChecksum != null && !expectedChecksum.equalsIgnoreCase(rs.getResponseBody().getChecksum())) {
+			throw new TestFailedException(rq.getId(), "Invalid RS Checksum: expected %s, got %s", expectedChecksum, rs.getResponseBody().getChecksum());
 		}
 
-		final String rsBodyAsStr = rs.getBody();
 		switch (assertRs.getBody()) {
 			case json:
-				final Object obj = json(rq.getId(), rsBodyAsStr);
-				rqAndRs.put("rs", obj);
-				if (obj instanceof Map) {
-					ALog.info("%cyan(RS Properties =) {}", ((Map<?, ?>) obj).keySet());
+				final List<String> properties = assertRs.getProperties() != null ? assertRs.getProperties().eval() : null;
+				final List<String[]> store = assertRs.getStore() != null ? assertRs.getStore().eval() : null;
+
+				// the properties & store are checked on the selected paths, and the whole tree is built lazily
+				final Object obj;
+				final Object selected;
+				if (config.getSelectiveJson() && !assertRs.isCall() && (properties != null || store != null)) {
+					final LazyJson lazyJson = lazyJson(rq.getId(), rs, properties, store);
+					obj = lazyJson.getValue();
+					selected = lazyJson.getSelected();
+					if (lazyJson.getSelected() != null) {
+						ALog.detail("%cyan(RS Selected Properties =) {}", lazyJson.getSelected().keySet());
+					}
+				} else {
+					obj = json(rq.getId(), rs.getBody());
+					selected = obj;
+					if (obj instanceof Map && ALog.isDetailEnabled()) {
+						ALog.detail("%cyan(RS Properties =) {}", ((Map<?, ?>) obj).keySet());
+					}
 				}
-				assertProperties(rq, obj);
-				if (assertRs.getStore() != null) {
+				rqAndRs.put("rs", obj);
+
+				assertProperties(rq, properties, selected);
+				if (store != null) {
 					if (rq.isWithId()) {
-						storeProperties(rq.getId(), assertRs.getStore(), obj);
+						storeProperties(rq.getId(), store, selected);
 					} else {
 						throw new TestFailedException(rq.getId(), "Id Not Found to Store: %s", assertRs.getStore());
 					}
@@ -325,7 +738,7 @@ public class ArtemisExecutor {
 
 				ContextHandler.getAspects().callCommonAssertRs(rq.getId(), obj);
 
-				if (assertRs.getCall() != null && assertRs.getCall()) {
+				if (assertRs.isCall()) {
 					if (rq.isWithId()) {
 						assertCall(rq, obj);
 					} else {
@@ -334,16 +747,18 @@ public class ArtemisExecutor {
 				}
 				break;
 			case text:
-				if (rsBodyAsStr.trim().isEmpty()) {
+				if (rs.getResponseBody().isBlank()) {
 					throw new TestFailedException(rq.getId(), "Invalid Rs Body: expecting text, got empty");
 				}
-				rqAndRs.put("rs", rsBodyAsStr);
+				rqAndRs.put("rs", rs.getBody());
 				break;
 			case empty:
-				if (!rsBodyAsStr.trim().isEmpty()) {
+				if (!rs.getResponseBody().isBlank()) {
 					throw new TestFailedException(rq.getId(), "Invalid Rs Body: expecting empty, got text");
 				}
 				break;
+			case discard:
+				break;
 		}
 
 		assertCookies(rs, rq, assertRs);
@@ -352,11 +767,11 @@ public class ArtemisExecutor {
 	// ---------------
 
 	private XArtemis createXArtemis() {
-		final XStream xStream = new XStream();
-		xStream.processAnnotations(new Class[]{XArtemis.class, XGet.class, XPost.class, XPut.class, XPatch.class, XDelete.class, XBreakPoint.class});
-		xStream.allowTypesByWildcard(new String[]{"org.devocative.artemis.xml.**"});
-
-		final XArtemis artemis = (XArtemis) xStream.fromXML(ContextHandler.loadXmlFile());
+		final XArtemis artemis = config.getCacheDir() != null ?
+			new SuiteCache(config.getCacheDir(), config.getName())
+				.loadSuite(ContextHandler.readFile(config.getXmlName()), String.join(",", config.getOnlyScenarios()),
+					xml -> parseXml(new ByteArrayInputStream(xml))) :
+			parseXml(ContextHandler.loadXmlFile());
 
 		if (config.getDevMode()) {
 			if (config.getLoop() != null && config.getLoop() > 1) {
@@ -376,10 +791,19 @@ public class ArtemisExecutor {
 				ALog.info("DEV MODE - Memory: {} -> {}, {}", memory.getScenarioName(), memory.getRqId(), memory.getSteps());
 			}
 
-			if (memory.getScenarioName() != null) {
+			// NOTE: the memorized scenario and request are looked up by name, since the XML may have changed or the
+			// scenario may be filtered out, and if any is missing, it is a full run
+			final XScenario memScenario = memory.getScenarioName() != null ?
+				findScenario(artemis, memory.getScenarioName()) : null;
+			final boolean hasRq = memScenario != null &&
+				(!memory.getSteps().contains(RqVars) || findRequest(memScenario, memory.getRqId()) != null);
+
+			if (memory.getScenarioName() != null && !hasRq) {
+				ALog.warn("DEV MODE - Memorized {} -> {} not found, running all", memory.getScenarioName(), memory.getRqId());
+			} else if (memory.getScenarioName() != null) {
 				artemis.setVars(Collections.emptyList());
 
-				while (!memory.getScenarioName().equals(artemis.getScenarios().get(0).getId())) {
+				while (artemis.getScenarios().get(0) != memScenario) {
 					final XScenario removed = artemis.getScenarios().remove(0);
 					ALog.info("DEV MODE - Removed Scenario: {}", removed.getId());
 				}
@@ -426,19 +850,51 @@ public class ArtemisExecutor {
 			}
 		}
 
-		return Proxy.create(artemis);
+		return artemis;
+	}
+
+	private static XScenario findScenario(XArtemis artemis, String id) {
+		if (artemis.getScenarios() == null) {
+			return null;
+		}
+
+		return artemis.getScenarios().stream()
+			.filter(scenario -> id.equals(scenario.getId()))
+			.findFirst()
+			.orElse(null);
+	}
+
+	// NOTE: the ids of the requests without an explicit one are set here, as the memorized one may be generated
+	private static XBaseRequest findRequest(XScenario scenario, String id) {
+		scenario.updateRequestsIds();
+		return scenario.getRequests().stream()
+			.filter(rq -> rq.getId().equals(id))
+			.findFirst()
+			.orElse(null);
 	}
 
-	private void assertProperties(XBaseRequest rq, Object rsAsObj) {
-		final XAssertRs assertRs = rq.getAssertRs();
+	private XArtemis parseXml(InputStream in) {
+		final long start = System.currentTimeMillis();
 
-		if (assertRs.getProperties() != null) {
-			final String[] properties = assertRs.getProperties().split(",");
+		// NOTE: the only filter of scenarios, so the disabled and unselected ones are skipped while parsing
+		final XmlLoader loader = new XmlLoader(this::isSelected);
+		final XArtemis artemis = loader.load(in);
 
+		ALog.info("XML Loaded: scenarios=[{}], skipped=[{}], duration=[{} ms]",
+			loader.getLoaded(), loader.getSkipped(), System.currentTimeMillis() - start);
+		return artemis;
+	}
+
+	private boolean isSelected(XScenario scenario) {
+		return scenario.isEnabled() &&
+			(config.getOnlyScenarios().isEmpty() || config.getOnlyScenarios().contains(scenario.getId()));
+	}
+
+	private void assertProperties(PRequest rq, List<String> properties, Object rsAsObj) {
+		if (properties != null) {
 			if (rsAsObj instanceof Map) {
 				final Map<?, ?> rsAsMap = (Map<?, ?>) rsAsObj;
-				for (String property : properties) {
-					final String prop = property.trim();
+				for (String prop : properties) {
 					if (!rsAsMap.containsKey(prop)) {
 						throw new TestFailedException(rq.getId(), "Invalid Property in RS Object: [%s]", prop);
 					}
@@ -449,25 +905,22 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void assertCookies(HttpResponse rs, XBaseRequest rq, XAssertRs assertRs) {
+	private void assertCookies(HttpResponse rs, PRequest rq, PAssertRs assertRs) {
 		if (!rs.getCookies().isEmpty() && assertRs.getCookies() != null) {
-			final String[] cookieNames = assertRs.getCookies().split(",");
-			for (String cookieName : cookieNames) {
-				if (!rs.getCookies().containsKey(cookieName.trim())) {
+			for (String cookieName : assertRs.getCookies().eval()) {
+				if (!rs.getCookies().containsKey(cookieName)) {
 					throw new TestFailedException(rq.getId(), "Cookie Not Found: %s", cookieName);
 				}
 			}
 		}
 	}
 
-	private void storeProperties(String id, String properties, Object rsAsObj) {
+	private void storeProperties(String id, List<String[]> properties, Object rsAsObj) {
 		if (rsAsObj instanceof Map) {
 			final Map<?, ?> rsAsMap = (Map<?, ?>) rsAsObj;
 			final Map<String, Object> rs = new HashMap<>();
-			final String[] props = properties.split(",");
 
-			for (String prop : props) {
-				final String[] parts = prop.trim().split("[.]");
+			for (String[] parts : properties) {
 				rs.put(parts[0], findValue(parts, 0, rsAsMap));
 			}
 
@@ -477,13 +930,13 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void assertCall(XBaseRequest rq, Object obj) {
+	private void assertCall(PRequest rq, Object obj) {
 		final String methodName = String.format("assertRs_%s", rq.getId());
 		if (obj instanceof Map) {
-			ALog.info("%cyan(AssertRs Call:) {}(Context, Map)", methodName);
+			ALog.detail("%cyan(AssertRs Call:) {}(Context, Map)", methodName);
 			ContextHandler.get().runAtScope(Assert, () -> ContextHandler.invoke(methodName, Immutable.create((Map) obj)));
 		} else if (obj instanceof List) {
-			ALog.info("%cyan(AssertRs Call:) {}(Context, List)", methodName);
+			ALog.detail("%cyan(AssertRs Call:) {}(Context, List)", methodName);
 			ContextHandler.get().runAtScope(Assert, () -> ContextHandler.invoke(methodName, Immutable.create((List<?>) obj)));
 		} else {
 			throw new TestFailedException(rq.getId(), "Unsupported Response Body Type");
@@ -509,8 +962,7 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void assertCode(XBaseRequest rq, HttpResponse rs) {
-		final XAssertRs assertRs = rq.getAssertRs();
+	private void assertCode(PRequest rq, PAssertRs assertRs, HttpResponse rs) {
 		if (assertRs.getStatus() != null && !assertRs.getStatus().equals(rs.getCode())) {
 			throw new TestFailedException(rq.getId(), "Invalid RS Code: expected %s, got %s", assertRs.getStatus(), rs.getCode());
 		}
@@ -524,16 +976,38 @@ public class ArtemisExecutor {
 		}
 	}
 
-	private void checkSleep(XScenario scenario) {
-		final String sleepStr = scenario.getSleep();
-		if (sleepStr != null) {
-			long sleep = Long.parseLong(sleepStr);
+	private LazyJson lazyJson(String id, HttpResponse rs, List<String> properties, List<String[]> store) {
+		try {
+			return new LazyJson(rs.getResponseBody(), properties, store);
+		} catch (IOException e) {
+			throw new TestFailedException(id, "Invalid JSON Format:\n%s", rs.getBody());
+		}
+	}
+
+	private void checkSleep(PScenario scenario) {
+		final PValue sleepValue = scenario.getSleep();
+		if (sleepValue != null) {
+			long sleep = sleepValue.evalLong();
 			try {
-				ALog.info("sleep: {}", sleep);
+				ALog.detail("sleep: {}", sleep);
 				Thread.sleep(sleep);
 			} catch (InterruptedException e) {
 				throw new RuntimeException("Sleep Problem", e);
 			}
 		}
 	}
+
+	private CompletableFuture<Void> checkSleepAsync(PScenario scenario, Continuation cont) {
+		final PValue sleepValue = scenario.getSleep();
+		if (sleepValue != null) {
+			long sleep = sleepValue.evalLong();
+			ALog.detail("sleep: {}", sleep);
+			return cont.delay(sleep);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private static Throwable causeOf(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
 }
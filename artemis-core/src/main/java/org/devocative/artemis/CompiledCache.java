@@ -0,0 +1,85 @@
+package org.devocative.artemis;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded and thread-safe cache for compiled Groovy artifacts keyed by their source string. Lookups are lock-free,
+ * and in case of exceeding the max size, an arbitrary entry, other than the just compiled one, is evicted.
+ */
+public class CompiledCache<T> {
+	private final String name;
+	private final int maxSize;
+	private final Map<String, T> map = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	// ------------------------------
+
+	public CompiledCache(String name, int maxSize) {
+		this.name = name;
+		this.maxSize = maxSize > 0 ? maxSize : 1;
+	}
+
+	// ------------------------------
+
+	public T get(String source, Function<String, T> compiler) {
+		T result = map.get(source);
+
+		if (result != null) {
+			hits.increment();
+		} else {
+			result = map.computeIfAbsent(source, key -> {
+				misses.increment();
+				return compiler.apply(key);
+			});
+			evict(source);
+		}
+
+		return result;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getSize() {
+		return map.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: size=%s/%s, hits=%s, misses=%s, evictions=%s",
+			name, getSize(), maxSize, getHits(), getMisses(), getEvictions());
+	}
+
+	// ------------------------------
+
+	// NOTE: the just compiled entry is kept, otherwise its next lookup would compile it again
+	private void evict(String keep) {
+		final Iterator<String> it = map.keySet().iterator();
+		while (map.size() > maxSize && it.hasNext()) {
+			if (!it.next().equals(keep)) {
+				it.remove();
+				evictions.increment();
+			}
+		}
+	}
+}
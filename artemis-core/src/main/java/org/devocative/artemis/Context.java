@@ -1,16 +1,21 @@
 package org.devocative.artemis;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.devocative.artemis.log.ALog;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * The vars are kept in three layers, and a name is resolved in the request, scenario, and global ones respectively.
+ * So clearing a scope only replaces its layer, and the Groovy bindings resolve the names on the layers without copy.
+ * Like the flat vars before the layers, the last write of a name wins till the next clear, so a write to a wider scope
+ * also shadows the name in the request layer, if it is already in a narrower one.
+ */
 public class Context {
 	private final Map<String, Object> globalVars = new HashMap<>();
-	private final Map<String, Object> scenarioVars = new HashMap<>();
-	private final Map<String, Object> vars = new HashMap<>();
+	private Map<String, Object> scenarioVars = new HashMap<>();
+	private Map<String, Object> requestVars = new HashMap<>();
 
 	private Map<String, String> cookies = Collections.emptyMap();
 
@@ -26,7 +31,6 @@ public class Context {
 	public Context(Context parent) {
 		if (parent != null) {
 			this.globalVars.putAll(parent.globalVars);
-			this.vars.putAll(parent.globalVars);
 			setCookies(parent.cookies);
 		}
 	}
@@ -38,7 +42,7 @@ public class Context {
 	}
 
 	public void addVar(String name, Object value, boolean store) {
-		if (vars.containsKey(name)) {
+		if (containsVar(name, EVarScope.Request)) {
 			throw new RuntimeException("Duplicate Var for Context: " + name);
 		}
 
@@ -79,8 +83,12 @@ public class Context {
 		}
 	}
 
+	/**
+	 * @return a read-only view of the vars of all the scopes
+	 */
+	@JsonIgnore
 	public Map<String, Object> getVars() {
-		return Immutable.create(vars);
+		return new Vars(null);
 	}
 
 	public Map<String, String> getCookies() {
@@ -93,6 +101,14 @@ public class Context {
 
 	// ---------------
 
+	/**
+	 * @return a map for a Groovy binding, which resolves the vars like <code>getVars()</code>, and keeps the
+	 * assignments of the script (e.g. <code>out</code> of a template) to itself
+	 */
+	Map<String, Object> createBinding() {
+		return new Vars(new HashMap<>());
+	}
+
 	void runAtScope(EVarScope scope, Runnable code) {
 		this.scope = scope;
 		code.run();
@@ -105,26 +121,15 @@ public class Context {
 				return globalVars.containsKey(name);
 			case Scenario:
 				return scenarioVars.containsKey(name);
-			case Request:
-				break;
 		}
-		return vars.containsKey(name);
+		return findScope(name) != null;
 	}
 
 	Object removeVar(String name, EVarScope scope) {
-		Object result;
-		result = vars.remove(name);
-
-		switch (scope) {
-			case Global:
-				result = globalVars.remove(name);
-				break;
-			case Scenario:
-				result = scenarioVars.remove(name);
-				break;
+		if (scope != EVarScope.Request) {
+			requestVars.remove(name);
 		}
-
-		return result;
+		return scopeVars(scope).remove(name);
 	}
 
 	void addVarByScope(String name, Object value, EVarScope scope) {
@@ -132,29 +137,112 @@ public class Context {
 			throw new TestFailedException("Var Attribute's Name Required");
 		}
 
-		vars.put(name, value);
+		scopeVars(scope).put(name, value);
+
+		if (scope != EVarScope.Request &&
+			(requestVars.containsKey(name) || (scope == EVarScope.Global && scenarioVars.containsKey(name)))) {
+			requestVars.put(name, value);
+		}
+	}
 
+	// NOTE: clearing a scope clears the narrower ones too
+	void clearVars(EVarScope scope) {
 		switch (scope) {
 			case Global:
-				globalVars.put(name, value);
-				break;
 			case Scenario:
-				scenarioVars.put(name, value);
-				break;
+				scenarioVars = new HashMap<>();
+			default:
+				requestVars = new HashMap<>();
 		}
 	}
 
-	void clearVars(EVarScope scope) {
-		vars.clear();
-		vars.putAll(globalVars);
+	// ------------------------------
 
+	// NOTE: the flat 'vars' of a memory file written before the layers (it is declared after the other layers, so they
+	// are already read), and its request vars are the ones in none of the other layers
+	@JsonProperty("vars")
+	private void setVars(Map<String, Object> vars) {
+		vars.forEach((name, value) -> {
+			if (!globalVars.containsKey(name) && !scenarioVars.containsKey(name)) {
+				requestVars.put(name, value);
+			}
+		});
+	}
+
+	private Map<String, Object> scopeVars(EVarScope scope) {
 		switch (scope) {
+			case Global:
+				return globalVars;
 			case Scenario:
-				scenarioVars.clear();
-				break;
-			case Request:
-				vars.putAll(scenarioVars);
-				break;
+				return scenarioVars;
+			default:
+				return requestVars;
+		}
+	}
+
+	private Map<String, Object> findScope(String name) {
+		if (requestVars.containsKey(name)) {
+			return requestVars;
+		} else if (scenarioVars.containsKey(name)) {
+			return scenarioVars;
+		} else if (globalVars.containsKey(name)) {
+			return globalVars;
+		}
+		return null;
+	}
+
+	// ------------------------------
+
+	private class Vars extends AbstractMap<String, Object> {
+		private final Map<String, Object> local;
+
+		Vars(Map<String, Object> local) {
+			this.local = local;
+		}
+
+		@Override
+		public Object get(Object key) {
+			if (local != null && local.containsKey(key)) {
+				return local.get(key);
+			}
+			final Map<String, Object> scope = findScope((String) key);
+			return scope != null ? Immutable.wrap(scope.get(key)) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (local != null && local.containsKey(key)) || findScope((String) key) != null;
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (local == null) {
+				throw new UnsupportedOperationException();
+			}
+			final Object old = get(key);
+			local.put(key, value);
+			return old;
+		}
+
+		@Override
+		public Object remove(Object key) {
+			if (local == null) {
+				throw new UnsupportedOperationException();
+			}
+			return local.remove(key);
+		}
+
+		// NOTE: iteration is rare (e.g. printing the vars), so the layers are merged here
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			final Map<String, Object> merged = new HashMap<>(globalVars);
+			merged.putAll(scenarioVars);
+			merged.putAll(requestVars);
+			merged.replaceAll((key, value) -> Immutable.wrap(value));
+			if (local != null) {
+				merged.putAll(local);
+			}
+			return Collections.unmodifiableMap(merged).entrySet();
 		}
 	}
 }
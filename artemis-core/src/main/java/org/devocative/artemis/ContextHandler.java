@@ -2,6 +2,7 @@ package org.devocative.artemis;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -9,14 +10,18 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import groovy.lang.*;
 import groovy.text.SimpleTemplateEngine;
+import groovy.text.Template;
 import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.devocative.artemis.cfg.Config;
 import org.devocative.artemis.ctx.Aspects;
 import org.devocative.artemis.ctx.InitContext;
 import org.devocative.artemis.log.ALog;
 
 import java.io.*;
-import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 import static org.devocative.artemis.EVarScope.Global;
@@ -29,9 +34,14 @@ public class ContextHandler {
 	private static final ObjectMapper MAPPER = new ObjectMapper();
 	private static final Memory NEW_MEMORY = new Memory();
 	private static final Aspects ASPECTS = new Aspects();
+	private static final LongAdder FAST_TEMPLATES = new LongAdder();
+	private static final LongAdder GROOVY_TEMPLATES = new LongAdder();
+	private static final Lock CONTEXT_LOCK = new ReentrantLock();
 
 	private static GroovyShell SHELL;
 	private static SimpleTemplateEngine ENGINE;
+	private static CompiledCache<Template> TEMPLATES;
+	private static CompiledCache<Class<? extends Script>> SCRIPTS;
 	private static Script MAIN;
 	private static Config CONFIG;
 	private static String MEM_FILE;
@@ -50,9 +60,18 @@ public class ContextHandler {
 		}
 
 		ENGINE = new SimpleTemplateEngine(gcl);
+		TEMPLATES = new CompiledCache<>("Template Cache", config.getCompiledCacheSize());
+		FAST_TEMPLATES.reset();
+		GROOVY_TEMPLATES.reset();
 
 		SHELL = new GroovyShell(gcl);
-		MAIN = SHELL.parse(new InputStreamReader(loadGroovyFile()));
+		SCRIPTS = new CompiledCache<>("Script Cache", config.getCompiledCacheSize());
+		if (config.getCacheDir() != null) {
+			final SuiteCache cache = new SuiteCache(config.getCacheDir(), config.getName());
+			MAIN = InvokerHelper.createScript(cache.loadScript(readFile(config.getGroovyName()), gcl), new Binding());
+		} else {
+			MAIN = SHELL.parse(new InputStreamReader(loadGroovyFile()));
+		}
 
 		MAPPER.setVisibility(MAPPER.getSerializationConfig().getDefaultVisibilityChecker()
 			.withFieldVisibility(JsonAutoDetect.Visibility.ANY));
@@ -88,19 +107,25 @@ public class ContextHandler {
 		createContext(null);
 	}
 
-	public static synchronized void createContext(Context parent) {
+	public static void createContext(Context parent) {
 		final Context ctx = new Context(parent);
 
 		if (parent == null) {
-			ctx.addVarByScope(SCRIPT_VAR, MAIN, Global);
+			// NOTE: a lock instead of synchronized, so a waiting virtual thread doesn't pin its carrier thread
+			CONTEXT_LOCK.lock();
+			try {
+				ctx.addVarByScope(SCRIPT_VAR, MAIN, Global);
 
-			CONFIG.getVars().forEach((key, value) -> {
-				ctx.addVarByScope(key, value, Global);
-				ALog.info("%cyan(External Global Var:) name=[{}] value=[{}]", key, value);
-			});
+				CONFIG.getVars().forEach((key, value) -> {
+					ctx.addVarByScope(key, value, Global);
+					ALog.detail("%cyan(External Global Var:) name=[{}] value=[{}]", key, value);
+				});
 
-			final InitContext init = new InitContext(ctx, ASPECTS);
-			ctx.runAtScope(Global, () -> MAIN.invokeMethod("before", new Object[]{init}));
+				final InitContext init = new InitContext(ctx, ASPECTS);
+				ctx.runAtScope(Global, () -> MAIN.invokeMethod("before", new Object[]{init}));
+			} finally {
+				CONTEXT_LOCK.unlock();
+			}
 		}
 
 		CTX.set(ctx);
@@ -110,6 +135,19 @@ public class ContextHandler {
 		return CTX.get();
 	}
 
+	/**
+	 * For the async executions: binds the context of a user to the current thread, which runs the next step of the user
+	 *
+	 * @param ctx null to unbind the current one
+	 */
+	public static void bind(Context ctx) {
+		if (ctx != null) {
+			CTX.set(ctx);
+		} else {
+			CTX.remove();
+		}
+	}
+
 	public static Aspects getAspects() {
 		return ASPECTS;
 	}
@@ -126,22 +164,56 @@ public class ContextHandler {
 	}
 
 	public static String evalTxtTemplate(String str) {
-		try {
-			return ENGINE
-				.createTemplate(str)
-				.make(new HashMap<>(get().getVars()))
-				.toString();
-		} catch (ClassNotFoundException | IOException e) {
-			throw new RuntimeException(e);
+		return evalTxtTemplate(compileTxtTemplate(str));
+	}
+
+	public static String evalTxtTemplate(Template template) {
+		GROOVY_TEMPLATES.increment();
+		return template
+			.make(get().createBinding())
+			.toString();
+	}
+
+	/**
+	 * @return the result, or null if the template couldn't be resolved without Groovy
+	 */
+	public static String evalTxtTemplate(FastTemplate template) {
+		final String result = template.eval(get().getVars());
+		if (result != null) {
+			FAST_TEMPLATES.increment();
 		}
+		return result;
+	}
+
+	public static long getFastTemplates() {
+		return FAST_TEMPLATES.sum();
+	}
+
+	public static long getGroovyTemplates() {
+		return GROOVY_TEMPLATES.sum();
+	}
+
+	public static Template compileTxtTemplate(String str) {
+		return TEMPLATES.get(str, ContextHandler::createTemplate);
+	}
+
+	public static CompiledCache<Template> getTemplates() {
+		return TEMPLATES;
 	}
 
 	public static Object evalExpr(String str) {
-		final Script script = SHELL.parse(str);
-		script.setBinding(new Binding(new HashMap<>(get().getVars())));
+		final Script script = InvokerHelper.createScript(compileExpr(str), new Binding(get().createBinding()));
 		return script.run();
 	}
 
+	public static Class<? extends Script> compileExpr(String str) {
+		return SCRIPTS.get(str, expr -> SHELL.parse(expr).getClass());
+	}
+
+	public static CompiledCache<Class<? extends Script>> getScripts() {
+		return SCRIPTS;
+	}
+
 	public static void invoke(String method) {
 		MAIN.invokeMethod(method, new Object[]{get()});
 	}
@@ -154,6 +226,18 @@ public class ContextHandler {
 		return MAPPER.readValue(json, cls);
 	}
 
+	public static <T> T fromJson(byte[] json, Class<T> cls) throws IOException {
+		return MAPPER.readValue(json, cls);
+	}
+
+	public static JsonParser createJsonParser(String json) throws IOException {
+		return MAPPER.createParser(json);
+	}
+
+	public static JsonParser createJsonParser(byte[] json) throws IOException {
+		return MAPPER.createParser(json);
+	}
+
 	public static Memory getMEMORY() {
 		return MEMORY;
 	}
@@ -183,6 +267,20 @@ public class ContextHandler {
 		return loadFile(CONFIG.getXmlName());
 	}
 
+	public static byte[] readFile(String name) {
+		try (InputStream in = loadFile(name)) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new RuntimeException("Can't read file: " + name, e);
+		}
+	}
+
 	public static InputStream loadFile(String name) {
 		if (CONFIG.getBaseDir() == null) {
 			final InputStream stream = ContextHandler.class.getResourceAsStream("/" + name);
@@ -206,4 +304,12 @@ public class ContextHandler {
 	private static InputStream loadGroovyFile() {
 		return loadFile(CONFIG.getGroovyName());
 	}
+
+	private static Template createTemplate(String str) {
+		try {
+			return ENGINE.createTemplate(str);
+		} catch (ClassNotFoundException | IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
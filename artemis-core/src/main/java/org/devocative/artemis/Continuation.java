@@ -0,0 +1,138 @@
+package org.devocative.artemis;
+
+import org.devocative.artemis.ctx.StatisticsContext;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The executor of the steps of an async execution (i.e. a user) for the Async engine. The steps of all the users run on
+ * a few shared threads, and each step is bound to the context, the statistics, and the name (i.e. the log file) of its
+ * user, as if it runs on the user's own thread. Since each step is started by the completion of the previous one (e.g.
+ * the response of a request), no thread waits for a response. The steps of a user are queued, and each one is submitted
+ * only after the previous one is finished, including moving the user's state off its thread, so the steps of a user
+ * never run at the same time, even if a step completes the future of the next one before it is finished.
+ */
+public class Continuation implements Executor {
+	private static final ExecutorService THREADS = Executors.newFixedThreadPool(
+		Math.max(2, Runtime.getRuntime().availableProcessors()), daemon("artemis-async-"));
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(daemon("artemis-timer-"));
+
+	private final String name;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger(0);
+
+	// NOTE: the state of the user between its steps, published to the next step by 'pending'
+	private Context context;
+	private StatisticsContext.ExecState state;
+
+	// ------------------------------
+
+	public Continuation(String name) {
+		this.name = name;
+	}
+
+	// ------------------------------
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (pending.getAndIncrement() == 0) {
+			THREADS.execute(this::runNext);
+		}
+	}
+
+	/**
+	 * Runs the first step of the user, on a shared thread
+	 */
+	public <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> step) {
+		return CompletableFuture.<Void>completedFuture(null).thenComposeAsync(v -> step.get(), this);
+	}
+
+	/**
+	 * The non-blocking sleep: the next step is run by the timer after <code>millis</code>
+	 */
+	public CompletableFuture<Void> delay(long millis) {
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		TIMER.schedule(() -> future.complete(null), millis, TimeUnit.MILLISECONDS);
+		return future;
+	}
+
+	/**
+	 * Runs <code>body</code> for each index in <code>[0, count)</code>, each one after the completion of the previous one
+	 */
+	public CompletableFuture<Void> loop(int count, IntFunction<CompletableFuture<Void>> body) {
+		return loop(0, count, () -> true, body);
+	}
+
+	/**
+	 * Same as <code>loop()</code>, and also stops when <code>active</code> is false before an index
+	 */
+	public CompletableFuture<Void> loop(int count, BooleanSupplier active, IntFunction<CompletableFuture<Void>> body) {
+		return loop(0, count, active, body);
+	}
+
+	// ------------------------------
+
+	private CompletableFuture<Void> loop(int idx, int count, BooleanSupplier active, IntFunction<CompletableFuture<Void>> body) {
+		if (idx >= count || !active.getAsBoolean()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final CompletableFuture<Void> current;
+		try {
+			current = body.apply(idx);
+		} catch (Throwable e) {
+			final CompletableFuture<Void> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+
+		// NOTE: the next index is run as a new task, so a long loop of completed steps doesn't grow the stack
+		return current.thenComposeAsync(v -> loop(idx + 1, count, active, body), this);
+	}
+
+	private void runNext() {
+		try {
+			run(tasks.poll());
+		} finally {
+			if (pending.decrementAndGet() > 0) {
+				THREADS.execute(this::runNext);
+			}
+		}
+	}
+
+	private void run(Runnable task) {
+		final Thread thread = Thread.currentThread();
+		final String threadName = thread.getName();
+
+		thread.setName(name);
+		ContextHandler.bind(context);
+		StatisticsContext.attach(state);
+		try {
+			task.run();
+		} finally {
+			context = ContextHandler.get();
+			state = StatisticsContext.detach();
+			ContextHandler.bind(null);
+			thread.setName(threadName);
+		}
+	}
+
+	private static ThreadFactory daemon(String prefix) {
+		final AtomicInteger idx = new AtomicInteger(0);
+		return r -> {
+			final Thread t = new Thread(r, prefix + idx.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+}
@@ -0,0 +1,106 @@
+package org.devocative.artemis;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A text template whose placeholders are only var references or property paths, such as <code>${cell}</code> or
+ * <code>${_prev.rs.code}</code>, so it is resolved directly on the context vars without Groovy. Any other template,
+ * e.g. <code>${_.generate(9, '0'..'9')}</code>, is left to the Groovy template engine.
+ */
+public class FastTemplate {
+	private static final Pattern PATH = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+
+	private final List<String> texts;
+	private final List<String[]> paths;
+
+	// ------------------------------
+
+	private FastTemplate(List<String> texts, List<String[]> paths) {
+		this.texts = texts;
+		this.paths = paths;
+	}
+
+	// ------------------------------
+
+	/**
+	 * @return the parsed template, or null if it needs Groovy (e.g. an expression, a <code>$var</code> without
+	 * braces, an escape, or a <code>&lt;% %&gt;</code> block)
+	 */
+	public static FastTemplate parse(String source) {
+		if (source.contains("<%") || source.indexOf('\\') >= 0) {
+			return null;
+		}
+
+		final List<String> texts = new ArrayList<>();
+		final List<String[]> paths = new ArrayList<>();
+
+		int from = 0;
+		int dollar;
+		while ((dollar = source.indexOf('$', from)) >= 0) {
+			if (!source.startsWith("${", dollar)) {
+				return null;
+			}
+
+			final int end = source.indexOf('}', dollar);
+			if (end < 0) {
+				return null;
+			}
+
+			final String path = source.substring(dollar + 2, end).trim();
+			if (!PATH.matcher(path).matches()) {
+				return null;
+			}
+
+			texts.add(newLines(source.substring(from, dollar)));
+			paths.add(path.split("[.]"));
+			from = end + 1;
+		}
+		texts.add(newLines(source.substring(from)));
+
+		return new FastTemplate(texts, paths);
+	}
+
+	// ------------------------------
+
+	/**
+	 * @return the result, or null if a path can't be resolved on maps, so the caller falls back to Groovy to have
+	 * the same result or error
+	 */
+	public String eval(Map<String, Object> vars) {
+		final StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < paths.size(); i++) {
+			builder.append(texts.get(i));
+
+			final String[] path = paths.get(i);
+			if (!vars.containsKey(path[0])) {
+				return null;
+			}
+
+			Object value = vars.get(path[0]);
+			for (int p = 1; p < path.length; p++) {
+				if (!(value instanceof Map)) {
+					return null;
+				}
+				value = ((Map<?, ?>) value).get(path[p]);
+			}
+
+			builder.append(InvokerHelper.toString(value));
+		}
+		builder.append(texts.get(paths.size()));
+
+		return builder.toString();
+	}
+
+	// ------------------------------
+
+	// NOTE: same as SimpleTemplateEngine, which writes '\r\n' and '\r' as '\n'
+	private static String newLines(String text) {
+		return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n").replace('\r', '\n') : text;
+	}
+}
@@ -2,36 +2,104 @@ package org.devocative.artemis;
 
 import java.util.*;
 
+/**
+ * Read-only views on maps and lists without copying them. The nested maps and lists are wrapped lazily on access, so
+ * the cost is proportional to the reads, not to the size, e.g. of a large response. Any modification throws
+ * <code>UnsupportedOperationException</code>, and the changes of the underlying object are visible through the view.
+ */
 public class Immutable {
 
+	@SuppressWarnings("unchecked")
 	public static Map<String, Object> create(Map<String, Object> map) {
-		final Map<String, Object> result = new HashMap<>();
-		for (Map.Entry<String, Object> entry : map.entrySet()) {
-			final Object value = entry.getValue();
-			if (value instanceof Map) {
-				result.put(entry.getKey(), create((Map) value));
-			} else if (value instanceof List) {
-				result.put(entry.getKey(), create((List) value));
-			} else {
-				result.put(entry.getKey(), value);
-			}
-		}
-		return Collections.unmodifiableMap(result);
+		return (Map<?, ?>) map instanceof MapView ? map : (Map<String, Object>) (Map<?, ?>) new MapView(map);
 	}
 
 	public static List<?> create(List<?> list) {
-		final List<Object> result = new ArrayList<>();
-
-		for (Object cell : list) {
-			if (cell instanceof Map) {
-				result.add(create((Map) cell));
-			} else if (cell instanceof List) {
-				result.add(create((List<?>) cell));
-			} else {
-				result.add(cell);
+		return list instanceof ListView ? list : new ListView(list);
+	}
+
+	@SuppressWarnings("unchecked")
+	static Object wrap(Object value) {
+		if (value instanceof Map) {
+			return create((Map<String, Object>) value);
+		} else if (value instanceof List) {
+			return create((List<?>) value);
+		}
+		return value;
+	}
+
+	// ------------------------------
+
+	// NOTE: the keys are not necessarily String, e.g. a map with Integer keys created in Groovy
+	private static class MapView extends AbstractMap<Object, Object> {
+		private final Map<?, ?> map;
+		private Set<Entry<Object, Object>> entrySet;
+
+		MapView(Map<?, ?> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return wrap(map.get(key));
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Set<Entry<Object, Object>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Entry<Object, Object>>() {
+					@Override
+					public Iterator<Entry<Object, Object>> iterator() {
+						final Iterator<? extends Entry<?, ?>> it = map.entrySet().iterator();
+						return new Iterator<Entry<Object, Object>>() {
+							@Override
+							public boolean hasNext() {
+								return it.hasNext();
+							}
+
+							@Override
+							public Entry<Object, Object> next() {
+								final Entry<?, ?> entry = it.next();
+								return new SimpleImmutableEntry<>(entry.getKey(), wrap(entry.getValue()));
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return map.size();
+					}
+				};
 			}
+			return entrySet;
 		}
+	}
 
-		return Collections.unmodifiableList(result);
+	private static class ListView extends AbstractList<Object> implements RandomAccess {
+		private final List<?> list;
+
+		ListView(List<?> list) {
+			this.list = list;
+		}
+
+		@Override
+		public Object get(int index) {
+			return wrap(list.get(index));
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
 	}
 }
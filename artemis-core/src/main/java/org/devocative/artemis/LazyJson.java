@@ -0,0 +1,210 @@
+package org.devocative.artemis;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.devocative.artemis.http.ResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A JSON response body parsed by the streaming parser, so that only the selected paths (i.e. the asserted properties
+ * and the stored ones) are materialized, and the rest is skipped. The whole tree is built on the first access to
+ * <code>getValue()</code>, e.g. by a Groovy expression on <code>_prev.rs</code>.
+ */
+public class LazyJson {
+	private final byte[] bytes;
+	private final String text;
+	private final Map<String, Object> selected;
+	private final Object value;
+
+	private Object tree;
+
+	// ------------------------------
+
+	/**
+	 * @param properties the top-level properties, only checked for presence
+	 * @param paths      the paths (e.g. <code>a.b.c</code> as <code>[a, b, c]</code>) to be materialized
+	 */
+	public LazyJson(ResponseBody body, List<String> properties, List<String[]> paths) throws IOException {
+		// NOTE: Jackson detects the UTF encodings on bytes, otherwise the decoded text is parsed
+		if (StandardCharsets.UTF_8.equals(body.getCharset())) {
+			this.bytes = body.copyBytes();
+			this.text = null;
+		} else {
+			this.bytes = null;
+			this.text = body.getText();
+		}
+
+		final Node root = new Node();
+		if (properties != null) {
+			properties.forEach(prop -> root.child(prop));
+		}
+		if (paths != null) {
+			for (String[] path : paths) {
+				Node node = root;
+				for (String part : path) {
+					node = node.child(part);
+				}
+				node.value = true;
+			}
+		}
+
+		try (JsonParser parser = createParser()) {
+			final JsonToken token = parser.nextToken();
+			if (token == null) {
+				throw new JsonParseException(parser, "No content to parse");
+			} else if (token == JsonToken.START_OBJECT) {
+				selected = new HashMap<>();
+				select(parser, root, selected);
+				value = new LazyMap();
+			} else if (token == JsonToken.START_ARRAY) {
+				parser.skipChildren();
+				selected = null;
+				value = new LazyList();
+			} else {
+				selected = null;
+				value = parser.readValueAs(Object.class);
+			}
+		}
+	}
+
+	// ------------------------------
+
+	/**
+	 * @return the selected properties and paths, with the same structure as the whole tree, or null if the body is not
+	 * a JSON object
+	 */
+	public Map<String, Object> getSelected() {
+		return selected;
+	}
+
+	/**
+	 * @return a map or list, building the whole tree on its first access, or the value itself for a scalar body
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	// ------------------------------
+
+	private JsonParser createParser() throws IOException {
+		return bytes != null ? ContextHandler.createJsonParser(bytes) : ContextHandler.createJsonParser(text);
+	}
+
+	private Object tree() {
+		if (tree == null) {
+			try {
+				tree = bytes != null ? ContextHandler.fromJson(bytes, Object.class) : ContextHandler.fromJson(text, Object.class);
+			} catch (IOException e) {
+				throw new RuntimeException("Invalid JSON Format", e);
+			}
+		}
+		return tree;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> map() {
+		return (Map<String, Object>) tree();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> list() {
+		return (List<Object>) tree();
+	}
+
+	// ---------------
+
+	private static void select(JsonParser parser, Node node, Map<String, Object> result) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String name = parser.getCurrentName();
+			final JsonToken token = parser.nextToken();
+			final Node child = node.children.get(name);
+
+			if (child == null) {
+				parser.skipChildren();
+			} else if (child.value || (!child.children.isEmpty() && token != JsonToken.START_OBJECT)) {
+				result.put(name, parser.readValueAs(Object.class));
+			} else if (!child.children.isEmpty()) {
+				final Map<String, Object> map = new HashMap<>();
+				select(parser, child, map);
+				result.put(name, map);
+			} else {
+				parser.skipChildren();
+				result.put(name, null);
+			}
+		}
+	}
+
+	// ------------------------------
+
+	private static class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private boolean value = false;
+
+		Node child(String name) {
+			return children.computeIfAbsent(name, k -> new Node());
+		}
+	}
+
+	private class LazyMap extends AbstractMap<String, Object> {
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return map().entrySet();
+		}
+
+		@Override
+		public Object get(Object key) {
+			return map().get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map().containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return map().size();
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			return map().put(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return map().remove(key);
+		}
+	}
+
+	private class LazyList extends AbstractList<Object> {
+		@Override
+		public Object get(int index) {
+			return list().get(index);
+		}
+
+		@Override
+		public int size() {
+			return list().size();
+		}
+
+		@Override
+		public Object set(int index, Object element) {
+			return list().set(index, element);
+		}
+
+		@Override
+		public void add(int index, Object element) {
+			list().add(index, element);
+		}
+
+		@Override
+		public Object remove(int index) {
+			return list().remove(index);
+		}
+	}
+}
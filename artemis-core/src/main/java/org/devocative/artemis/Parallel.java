@@ -1,17 +1,70 @@
 package org.devocative.artemis;
 
+import org.devocative.artemis.cfg.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
 
 public class Parallel {
 	public static final String THREAD_MIDIX = "-th-";
+	private static final long STAGE_TICK = 100;
+	private static final long LATE_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(1);
 	private static final Logger log = LoggerFactory.getLogger(Parallel.class);
 
-	public static Result execute(String name, int degree, Runnable runnable) {
+	// NOTE: Java 21 API via reflection, since the build target is Java 8
+	private static final Method OF_VIRTUAL;
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_UNSTARTED;
+
+	private static final AtomicInteger ACTIVE_WORKERS = new AtomicInteger(0);
+
+	private static boolean VIRTUAL_THREADS = false;
+
+	static {
+		Method ofVirtual = null, builderName = null, builderUnstarted = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			builderName = builder.getMethod("name", String.class);
+			builderUnstarted = builder.getMethod("unstarted", Runnable.class);
+
+			// NOTE: on JDK 19/20 without '--enable-preview', it throws UnsupportedOperationException
+			ofVirtual.invoke(null);
+		} catch (Exception e) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = builderName;
+		BUILDER_UNSTARTED = builderUnstarted;
+	}
+
+	// ------------------------------
+
+	/**
+	 * Runs each worker on a virtual thread, if the running JVM supports it.
+	 *
+	 * @return false if virtual threads are requested but not supported
+	 */
+	public static boolean useVirtualThreads(boolean enabled) {
+		VIRTUAL_THREADS = enabled && OF_VIRTUAL != null;
+		return VIRTUAL_THREADS == enabled;
+	}
+
+	public static int getActiveWorkers() {
+		return ACTIVE_WORKERS.get();
+	}
+
+	public static Result execute(String name, int degree, Runnable task) {
+		final Runnable runnable = active(task);
 		final Result result;
 
 		if (degree <= 1) {
@@ -36,7 +89,7 @@ public class Parallel {
 			final List<String> builder = Collections.synchronizedList(new ArrayList<>());
 			final List<Thread> list = new ArrayList<>();
 			for (int i = 0; i < degree; i++) {
-				final Thread t = new Thread(runnable, String.format("%s" + THREAD_MIDIX + "%05d", name, i));
+				final Thread t = newThread(String.format("%s" + THREAD_MIDIX + "%05d", name, i), runnable);
 				t.setUncaughtExceptionHandler((t1, e) -> {
 					builder.add(String.format("\n%s: %s", t1.getName(), e.getMessage()));
 				});
@@ -59,4 +112,297 @@ public class Parallel {
 		}
 		return result;
 	}
+
+	/**
+	 * Same as <code>execute()</code> for the async executions (i.e. the Async engine): each <code>user</code> receives
+	 * its name and returns the future of its execution, so no thread is held by a user while its request is in flight.
+	 */
+	public static CompletableFuture<Result> executeAsync(String name, int degree, Function<String, CompletableFuture<Void>> user) {
+		if (degree <= 1) {
+			return startAsync(name, user).handle((v, error) -> {
+				String errStr = null;
+
+				if (error != null) {
+					final Throwable cause = unwrap(error);
+					if (cause instanceof TestFailedException) {
+						errStr = "TestFailedException: " + cause.getMessage();
+
+						if (cause.getCause() != null) {
+							log.error("Parallel Execute: ", cause.getCause());
+						}
+					} else {
+						log.error("Parallel Execute: ", cause);
+						errStr = "Exception: " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+					}
+				}
+
+				return new Result(1, errStr == null ? 0 : 1)
+					.setErrors(errStr);
+			});
+		}
+
+		final List<String> builder = Collections.synchronizedList(new ArrayList<>());
+		final CompletableFuture<?>[] users = new CompletableFuture[degree];
+		for (int i = 0; i < degree; i++) {
+			users[i] = startAsync(String.format("%s" + THREAD_MIDIX + "%05d", name, i), user, builder);
+		}
+
+		return CompletableFuture.allOf(users).thenApply(v -> {
+			Collections.sort(builder);
+
+			return new Result(degree, builder.size())
+				.setErrors(String.join("", builder));
+		});
+	}
+
+	/**
+	 * Open model: starts <code>iterations</code> executions at a constant <code>rate</code> (per second), regardless of
+	 * the ones still running. At most <code>maxConcurrency</code> executions run at the same time, and an arrival
+	 * finding no free slot is either delayed or dropped. The schedule is fixed (<code>start + i * period</code>), so
+	 * after a delay the late arrivals are started as soon as the slots are freed, until the schedule is caught up. An
+	 * arrival starting after its intended start is counted as delayed. The <code>iteration</code> also receives its
+	 * intended start time (<code>System.nanoTime()</code> based).
+	 */
+	public static Result executeAtRate(String name, double rate, int iterations, int maxConcurrency, boolean dropOverflow, ObjLongConsumer<Integer> iteration) {
+		final List<String> builder = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger threadIdx = new AtomicInteger(0);
+		final ExecutorService workers = Executors.newFixedThreadPool(maxConcurrency, r ->
+			newThread(String.format("%s" + THREAD_MIDIX + "%05d", name, threadIdx.getAndIncrement()), r));
+
+		try {
+			return scheduleAtRate(rate, iterations, maxConcurrency, dropOverflow, builder,
+				(slot, itr, intendedStart) -> CompletableFuture.runAsync(() -> {
+					try {
+						active(() -> iteration.accept(itr, intendedStart)).run();
+					} catch (Throwable e) {
+						builder.add(String.format("\n%s: %s", Thread.currentThread().getName(), e.getMessage()));
+					}
+				}, workers));
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Same as <code>executeAtRate()</code> for the async executions (i.e. the Async engine): an arrival holds its slot
+	 * till its future is completed, and no thread is held while its request is in flight. The slots are named the same
+	 * as the threads of <code>executeAtRate()</code>, so they are logged the same way.
+	 */
+	public static Result executeAtRateAsync(String name, double rate, int iterations, int maxConcurrency, boolean dropOverflow, IAsyncArrival arrival) {
+		final List<String> builder = Collections.synchronizedList(new ArrayList<>());
+
+		return scheduleAtRate(rate, iterations, maxConcurrency, dropOverflow, builder,
+			(slot, itr, intendedStart) -> startAsync(String.format("%s" + THREAD_MIDIX + "%05d", name, slot),
+				slotName -> arrival.start(slotName, itr, intendedStart), builder));
+	}
+
+	/**
+	 * Staged load: the number of running workers follows the <code>stages</code>, changing linearly in each one. A
+	 * worker keeps iterating while its <code>BooleanSupplier</code> is true, so the extra ones stop at the end of
+	 * their current iteration when the target decreases. On each tick, the workers are topped up to the current target,
+	 * so a failed one is replaced by a new one.
+	 */
+	public static Result executeStaged(String name, List<Stage> stages, Consumer<String> onStage, Consumer<BooleanSupplier> worker) {
+		final List<String> builder = Collections.synchronizedList(new ArrayList<>());
+
+		return stage(name, stages, onStage, builder, (workerName, active) -> {
+			final CompletableFuture<Void> future = new CompletableFuture<>();
+			final Thread t = newThread(workerName, active(() -> {
+				try {
+					worker.accept(active);
+				} catch (Throwable e) {
+					builder.add(String.format("\n%s: %s", workerName, e.getMessage()));
+				} finally {
+					future.complete(null);
+				}
+			}));
+			t.start();
+			return future;
+		});
+	}
+
+	/**
+	 * Same as <code>executeStaged()</code> for the async executions (i.e. the Async engine): a worker receives its name
+	 * and returns the future of its execution.
+	 */
+	public static Result executeStagedAsync(String name, List<Stage> stages, Consumer<String> onStage,
+											BiFunction<String, BooleanSupplier, CompletableFuture<Void>> worker) {
+		final List<String> builder = Collections.synchronizedList(new ArrayList<>());
+
+		return stage(name, stages, onStage, builder, (workerName, active) ->
+			startAsync(workerName, n -> worker.apply(n, active), builder));
+	}
+
+	// ------------------------------
+
+	private static Result scheduleAtRate(double rate, int iterations, int maxConcurrency, boolean dropOverflow,
+										 List<String> builder, IArrivalLauncher launcher) {
+		final Semaphore slots = new Semaphore(maxConcurrency);
+		final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+		for (int i = 0; i < maxConcurrency; i++) {
+			freeSlots.add(i);
+		}
+
+		final long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		final long start = System.nanoTime();
+		int started = 0, dropped = 0, delayed = 0;
+
+		try {
+			for (int i = 0; i < iterations; i++) {
+				final long intendedStart = start + i * period;
+				sleepUntil(intendedStart);
+
+				if (!slots.tryAcquire()) {
+					if (dropOverflow) {
+						dropped++;
+						continue;
+					}
+
+					slots.acquire();
+				}
+
+				// NOTE: the tolerance ignores the few microseconds the sleep usually oversleeps
+				if (System.nanoTime() - intendedStart > LATE_TOLERANCE) {
+					delayed++;
+				}
+
+				final Integer slot = freeSlots.poll();
+				started++;
+				launcher.launch(slot, i, intendedStart).whenComplete((v, e) -> {
+					freeSlots.add(slot);
+					slots.release();
+				});
+			}
+
+			// NOTE: all the slots are free when all the started arrivals are finished
+			slots.acquire(maxConcurrency);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+
+		Collections.sort(builder);
+
+		return new Result(started, builder.size())
+			.setErrors(String.join("", builder))
+			.setDropped(dropped)
+			.setDelayed(delayed);
+	}
+
+	private static Result stage(String name, List<Stage> stages, Consumer<String> onStage, List<String> builder,
+								BiFunction<String, BooleanSupplier, CompletableFuture<Void>> starter) {
+		final AtomicInteger target = new AtomicInteger(0);
+		final Map<Integer, CompletableFuture<Void>> workers = new HashMap<>();
+		int started = 0;
+
+		try {
+			int from = 0;
+			for (int s = 0; s < stages.size(); s++) {
+				final Stage stage = stages.get(s);
+				final long duration = Util.parseDuration(stage.getDuration());
+				final int to = stage.getTarget();
+
+				onStage.accept(String.format("%02d:%s->%s/%s", s + 1, from, to, stage.getDuration()));
+
+				final long stageStart = System.currentTimeMillis();
+				long elapsed;
+				while ((elapsed = System.currentTimeMillis() - stageStart) < duration) {
+					target.set(from + (int) ((to - from) * elapsed / duration));
+
+					for (int i = 0; i < target.get(); i++) {
+						final CompletableFuture<Void> current = workers.get(i);
+						if (current == null || current.isDone()) {
+							final int idx = i;
+							workers.put(i, starter.apply(String.format("%s" + THREAD_MIDIX + "%05d", name, i), () -> idx < target.get()));
+							started++;
+						}
+					}
+
+					Thread.sleep(Math.min(STAGE_TICK, duration - elapsed));
+				}
+				from = to;
+			}
+
+			target.set(0);
+			CompletableFuture.allOf(workers.values().toArray(new CompletableFuture[0])).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+
+		Collections.sort(builder);
+
+		return new Result(started, builder.size())
+			.setErrors(String.join("", builder));
+	}
+
+	// NOTE: the future of a user, counted as an active worker while it is not completed
+	private static CompletableFuture<Void> startAsync(String name, Function<String, CompletableFuture<Void>> user) {
+		ACTIVE_WORKERS.incrementAndGet();
+
+		CompletableFuture<Void> future;
+		try {
+			future = user.apply(name);
+		} catch (Throwable e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		return future.whenComplete((v, e) -> ACTIVE_WORKERS.decrementAndGet());
+	}
+
+	// NOTE: same as above, and its error is added to the builder, so the returned future is always completed normally
+	private static CompletableFuture<Void> startAsync(String name, Function<String, CompletableFuture<Void>> user, List<String> builder) {
+		return startAsync(name, user).handle((v, e) -> {
+			if (e != null) {
+				builder.add(String.format("\n%s: %s", name, unwrap(e).getMessage()));
+			}
+			return null;
+		});
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+
+	// ------------------------------
+
+	private static Runnable active(Runnable runnable) {
+		return () -> {
+			ACTIVE_WORKERS.incrementAndGet();
+			try {
+				runnable.run();
+			} finally {
+				ACTIVE_WORKERS.decrementAndGet();
+			}
+		};
+	}
+
+	private static Thread newThread(String name, Runnable runnable) {
+		if (VIRTUAL_THREADS) {
+			try {
+				final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+				return (Thread) BUILDER_UNSTARTED.invoke(builder, runnable);
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return new Thread(runnable, name);
+	}
+
+	private static void sleepUntil(long nanoTime) throws InterruptedException {
+		final long wait = nanoTime - System.nanoTime();
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	// ------------------------------
+
+	@FunctionalInterface
+	public interface IAsyncArrival {
+		CompletableFuture<Void> start(String name, int iteration, long intendedStart);
+	}
+
+	@FunctionalInterface
+	private interface IArrivalLauncher {
+		CompletableFuture<Void> launch(int slot, int iteration, long intendedStart);
+	}
 }
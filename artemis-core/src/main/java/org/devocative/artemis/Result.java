@@ -13,6 +13,8 @@ public class Result {
 	private final int degree;
 	private final int noOfErrors;
 	private String errors;
+	private int dropped;
+	private int delayed;
 
 	public boolean hasError() {
 		return noOfErrors > 0;
@@ -0,0 +1,263 @@
+package org.devocative.artemis;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.devocative.artemis.log.ALog;
+import org.devocative.artemis.xml.XArtemis;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An on-disk cache of the parsed XML (as serialized <code>XArtemis</code>) and the compiled classes of the Groovy
+ * file, each keyed by the SHA-256 of its content. So an unchanged suite skips the XML parser and the Groovy compiler on
+ * startup. Any problem in reading a cached file is treated as a miss, and the file is rewritten. A file is written
+ * to a temp file and then moved, so concurrent runs on the same dir never read a partial one. Since the dir may be
+ * shared, only the X* model classes and a few JDK types are accepted while deserializing a suite.
+ */
+public class SuiteCache {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final String MODEL_PACKAGE = XArtemis.class.getPackage().getName() + ".";
+	private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+		String.class.getName(), Boolean.class.getName(), Integer.class.getName(), Long.class.getName(),
+		Number.class.getName(), Enum.class.getName(), ArrayList.class.getName(), LinkedList.class.getName()));
+
+	private final File dir;
+	private final String name;
+
+	// ------------------------------
+
+	public SuiteCache(String dir, String name) {
+		this.dir = new File(dir);
+		this.name = name;
+	}
+
+	// ------------------------------
+
+	/**
+	 * @param selection the selected scenarios, which are filtered while parsing, so it is a part of the key
+	 */
+	public XArtemis loadSuite(byte[] xml, String selection, Function<byte[], XArtemis> parser) {
+		final String key = hash(xml, selection.getBytes(StandardCharsets.UTF_8));
+		final File file = new File(dir, String.format("%s-suite-%s.ser", name, key));
+
+		if (file.isFile()) {
+			try (ObjectInputStream in = new ModelInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				final XArtemis artemis = (XArtemis) in.readObject();
+				ALog.info("Suite Cache: XML loaded from [{}]", file.getName());
+				return artemis;
+			} catch (IOException | ClassNotFoundException | ClassCastException e) {
+				ALog.warn("Suite Cache: invalid [{}], parsing XML: {}", file.getName(), e.getMessage());
+			}
+		}
+
+		final XArtemis artemis = parser.apply(xml);
+		try {
+			write(file, "suite", stream -> {
+				try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(stream))) {
+					out.writeObject(artemis);
+				}
+			});
+			ALog.info("Suite Cache: XML stored in [{}]", file.getName());
+		} catch (IOException e) {
+			ALog.warn("Suite Cache: can't store [{}]: {}", file.getName(), e.getMessage());
+		}
+		return artemis;
+	}
+
+	/**
+	 * Only the classes of the main script (i.e. its own classes and closures) are cached, and the other ones, e.g. the
+	 * helper .groovy files in the classpath, are resolved by the parent, so their changes are not hidden by the cache.
+	 */
+	public Class<? extends Script> loadScript(byte[] groovy, GroovyClassLoader parent) {
+		final String key = hash(groovy, GroovySystem.getVersion().getBytes(StandardCharsets.UTF_8));
+		final File file = new File(dir, String.format("%s-groovy-%s.bin", name, key));
+		final String mainClass = "Script_" + key.substring(0, 12);
+
+		Map<String, byte[]> classes = null;
+		if (file.isFile()) {
+			try {
+				classes = readClasses(file);
+				ALog.info("Suite Cache: Groovy classes loaded from [{}]", file.getName());
+			} catch (IOException e) {
+				ALog.warn("Suite Cache: invalid [{}], compiling Groovy: {}", file.getName(), e.getMessage());
+			}
+		}
+
+		if (classes == null) {
+			final CompilationUnit unit = new CompilationUnit(parent);
+			final SourceUnit main = unit.addSource(mainClass + ".groovy", new String(groovy));
+			unit.compile(Phases.CLASS_GENERATION);
+
+			final List<String> mainClasses = main.getAST().getClasses().stream()
+				.map(ClassNode::getName)
+				.collect(Collectors.toList());
+
+			classes = new LinkedHashMap<>();
+			for (GroovyClass cls : unit.getClasses()) {
+				final String clsName = cls.getName();
+				if (mainClasses.stream().anyMatch(owner -> clsName.equals(owner) || clsName.startsWith(owner + "$"))) {
+					classes.put(clsName, cls.getBytes());
+				}
+			}
+
+			try {
+				final Map<String, byte[]> toWrite = classes;
+				write(file, "groovy", stream -> writeClasses(stream, toWrite));
+				ALog.info("Suite Cache: Groovy classes stored in [{}]", file.getName());
+			} catch (IOException e) {
+				ALog.warn("Suite Cache: can't store [{}]: {}", file.getName(), e.getMessage());
+			}
+		}
+
+		try {
+			return new BytesClassLoader(parent, classes).loadClass(mainClass).asSubclass(Script.class);
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException("Suite Cache: main script class not found: " + mainClass, e);
+		}
+	}
+
+	// ------------------------------
+
+	// NOTE: writes to a temp file moved atomically to the target, and then removes the previous entries of this suite
+	private void write(File file, String kind, IContentWriter writer) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+			throw new IOException("Can't create dir: " + dir.getAbsolutePath());
+		}
+
+		final Path temp = Files.createTempFile(dir.toPath(), name + ".", ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				writer.write(out);
+			}
+
+			try {
+				Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		final String prefix = String.format("%s-%s-", name, kind);
+		final File[] olds = dir.listFiles((d, fileName) -> fileName.startsWith(prefix) && !fileName.equals(file.getName()));
+		if (olds != null) {
+			for (File old : olds) {
+				old.delete();
+			}
+		}
+	}
+
+	private static Map<String, byte[]> readClasses(File file) throws IOException {
+		final Map<String, byte[]> classes = new LinkedHashMap<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				final String className = in.readUTF();
+				final byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				classes.put(className, bytes);
+			}
+		}
+		return classes;
+	}
+
+	private static void writeClasses(OutputStream stream, Map<String, byte[]> classes) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(classes.size());
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+		}
+	}
+
+	private static String hash(byte[]... contents) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (byte[] content : contents) {
+				digest.update(content);
+			}
+
+			final byte[] hash = digest.digest();
+			final char[] hex = new char[hash.length * 2];
+			for (int i = 0; i < hash.length; i++) {
+				hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+				hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+			}
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// ------------------------------
+
+	@FunctionalInterface
+	private interface IContentWriter {
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static class ModelInputStream extends ObjectInputStream {
+		ModelInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			final String className = desc.getName();
+			if (!className.startsWith(MODEL_PACKAGE) && !ALLOWED_CLASSES.contains(className)) {
+				throw new InvalidClassException(className, "Not allowed in suite cache");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws InvalidClassException {
+			throw new InvalidClassException("Proxy", "Not allowed in suite cache");
+		}
+	}
+
+	// NOTE: the cached classes are defined by this loader before asking the parent, so a file with the same name in
+	// the Groovy classpath is not compiled instead
+	private static class BytesClassLoader extends ClassLoader {
+		private final Map<String, byte[]> classes;
+
+		BytesClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+			synchronized (getClassLoadingLock(className)) {
+				Class<?> cls = findLoadedClass(className);
+				if (cls == null) {
+					final byte[] bytes = classes.get(className);
+					cls = bytes != null ? defineClass(className, bytes, 0, bytes.length) : super.loadClass(className, false);
+				}
+				if (resolve) {
+					resolveClass(cls);
+				}
+				return cls;
+			}
+		}
+	}
+}
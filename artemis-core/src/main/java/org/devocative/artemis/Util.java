@@ -5,9 +5,14 @@ import org.devocative.artemis.xml.INameTheValue;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Util {
+	private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h)?", Pattern.CASE_INSENSITIVE);
+
 	public static Map<String, CharSequence> asMap(List<? extends INameTheValue> list) {
 		return list == null ? Collections.emptyMap() :
 			list
@@ -18,4 +23,28 @@ public class Util {
 	public static boolean isEmpty(String str) {
 		return str == null || str.trim().isEmpty();
 	}
+
+	/**
+	 * Parses durations like <code>500ms</code>, <code>30s</code>, <code>10m</code>, or <code>2h</code> (no unit
+	 * means second) into milliseconds
+	 */
+	public static long parseDuration(String str) {
+		final Matcher matcher = DURATION.matcher(str != null ? str.trim() : "");
+		if (!matcher.matches()) {
+			throw new RuntimeException("Invalid Duration: " + str);
+		}
+
+		final long value = Long.parseLong(matcher.group(1));
+		final String unit = matcher.group(2) != null ? matcher.group(2).toLowerCase() : "s";
+		switch (unit) {
+			case "ms":
+				return value;
+			case "m":
+				return TimeUnit.MINUTES.toMillis(value);
+			case "h":
+				return TimeUnit.HOURS.toMillis(value);
+			default:
+				return TimeUnit.SECONDS.toMillis(value);
+		}
+	}
 }
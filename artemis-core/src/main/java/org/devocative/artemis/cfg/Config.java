@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,9 +32,28 @@ public class Config {
 	private String baseDir;
 	private Integer parallel;
 	private Integer loop = 1;
+	private String duration;
 	private Boolean consoleLog;
 	private Map<String, Object> vars = new HashMap<>();
 	private String proxy;
+	private Integer compiledCacheSize = 2000;
+	private Boolean compileOnLoad = false;
+	private Double rate;
+	private Integer maxConcurrency = 100;
+	private ERateOverflow rateOverflow = ERateOverflow.Delay;
+	private List<Stage> stages = Collections.emptyList();
+	private Boolean virtualThreads = false;
+	private EHttpVersion httpVersion = EHttpVersion.Http1;
+	private EHttpEngine httpEngine = EHttpEngine.Classic;
+	private Integer reportInterval = 10;
+	private String exportDir;
+	private String cacheDir;
+	private Pool pool;
+	private Boolean selectiveJson = false;
+	private Boolean perfMode = false;
+	private Boolean asyncLog = false;
+	private Integer logQueueSize = 8192;
+	private ELogOverflow logOverflow = ELogOverflow.Block;
 
 	// ------------------------------
 
@@ -63,6 +83,14 @@ public class Config {
 		return this;
 	}
 
+	public Config addStage(String duration, int target) {
+		if (stages.isEmpty()) {
+			stages = new ArrayList<>();
+		}
+		stages.add(new Stage(duration, target));
+		return this;
+	}
+
 	public Config addVar(String name, Object value) {
 		vars.put(name, value);
 		return this;
@@ -0,0 +1,9 @@
+package org.devocative.artemis.cfg;
+
+/**
+ * <code>Classic</code>: a blocking client, and each user holds its thread during a request, <code>Async</code>: one
+ * shared non-blocking client, and each user is a chain of continuations, so no thread waits on an in-flight request
+ */
+public enum EHttpEngine {
+	Classic, Async
+}
@@ -0,0 +1,9 @@
+package org.devocative.artemis.cfg;
+
+/**
+ * <code>Http1</code>: HTTP/1.1 only, <code>Http2</code>: HTTP/2 only (h2 over TLS, and h2c with prior knowledge over
+ * plain connections), <code>Negotiate</code>: h2 if the server accepts it via ALPN (TLS), otherwise HTTP/1.1
+ */
+public enum EHttpVersion {
+	Http1, Http2, Negotiate
+}
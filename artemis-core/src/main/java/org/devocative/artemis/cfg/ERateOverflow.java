@@ -0,0 +1,5 @@
+package org.devocative.artemis.cfg;
+
+public enum ERateOverflow {
+	Delay, Drop
+}
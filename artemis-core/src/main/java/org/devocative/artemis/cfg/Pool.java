@@ -0,0 +1,31 @@
+package org.devocative.artemis.cfg;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * The shared connection pool of the HTTP/1 engine, used by all the threads instead of a pool per
+ * thread. The durations are like <code>500ms</code>, <code>30s</code>, or <code>10m</code>, and a <code>null</code>
+ * one disables the related feature (e.g. no <code>timeToLive</code> means unlimited, and no <code>keepAlive</code>
+ * means the server's <code>Keep-Alive</code> header, or the client default).
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class Pool {
+	private Integer maxTotal = 200;
+	private Integer maxPerRoute = 200;
+	private String idleEviction = "30s";
+	private String timeToLive;
+	private String keepAlive;
+	private String validateAfterInactivity = "2s";
+
+	// ------------------------------
+
+	@Override
+	public String toString() {
+		return String.format("maxTotal=%s, maxPerRoute=%s, idleEviction=%s, timeToLive=%s, keepAlive=%s, validateAfterInactivity=%s",
+			maxTotal, maxPerRoute, idleEviction, timeToLive, keepAlive, validateAfterInactivity);
+	}
+}
@@ -0,0 +1,35 @@
+package org.devocative.artemis.cfg;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * A load stage: the number of running users changes linearly from the previous stage's target (or zero for the first
+ * one) to this <code>target</code> during the <code>duration</code> (e.g. <code>30s</code>, <code>10m</code>, or
+ * <code>2h</code>). The same target for two consecutive stages results in a plateau.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class Stage {
+	private String duration;
+	private Integer target;
+
+	// ------------------------------
+
+	public Stage() {
+	}
+
+	public Stage(String duration, Integer target) {
+		this.duration = duration;
+		this.target = target;
+	}
+
+	// ------------------------------
+
+	@Override
+	public String toString() {
+		return String.format("%s->%s", duration, target);
+	}
+}
@@ -0,0 +1,110 @@
+package org.devocative.artemis.ctx;
+
+import org.HdrHistogram.Histogram;
+import org.devocative.artemis.Parallel;
+import org.devocative.artemis.log.ALog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.devocative.artemis.ctx.StatisticsContext.readableMicros;
+
+/**
+ * Prints a compact progress line every interval: throughput, errors, active workers, and latency percentiles of the
+ * interval, overall and per scenario. It only reads the statistics, so the workers are never blocked. Its thread has
+ * the main thread's name, so the lines are written in the main log and console.
+ */
+public class ProgressReporter implements Runnable {
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final long intervalMillis;
+	private final long start = System.currentTimeMillis();
+	private final Thread thread;
+
+	private long lastReport = start;
+	private long lastErrors = 0;
+	private volatile boolean running = true;
+
+	// ------------------------------
+
+	private ProgressReporter(String name, int intervalSeconds) {
+		this.intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+	}
+
+	// ------------------------------
+
+	public static ProgressReporter start(String name, int intervalSeconds) {
+		final ProgressReporter reporter = new ProgressReporter(name, intervalSeconds);
+		reporter.thread.start();
+		return reporter;
+	}
+
+	public void stop() {
+		running = false;
+		thread.interrupt();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				Thread.sleep(intervalMillis);
+			} catch (InterruptedException e) {
+				break;
+			}
+			report();
+		}
+	}
+
+	// ------------------------------
+
+	private void report() {
+		final long now = System.currentTimeMillis();
+		final double seconds = Math.max(now - lastReport, 1) / 1000.0;
+		lastReport = now;
+
+		final long errors = StatisticsContext.getErrors();
+		final long intervalErrors = errors - lastErrors;
+		lastErrors = errors;
+
+		final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+		final Map<String, Histogram> scenarios = new LinkedHashMap<>();
+		StatisticsContext.takeIntervals().forEach((id, histogram) -> {
+			total.add(histogram);
+			final int idx = id.indexOf('.');
+			scenarios
+				.computeIfAbsent(idx > 0 ? id.substring(0, idx) : id, k -> new Histogram(SIGNIFICANT_DIGITS))
+				.add(histogram);
+		});
+
+		final StringBuilder builder = new StringBuilder();
+		scenarios.forEach((scenario, histogram) ->
+			builder
+				.append(" | ")
+				.append(String.format("%s: rq/s=[%.1f] p50=[%s] p95=[%s] p99=[%s]",
+					scenario, histogram.getTotalCount() / seconds,
+					readableMicros(histogram.getValueAtPercentile(50.0)).trim(),
+					readableMicros(histogram.getValueAtPercentile(95.0)).trim(),
+					readableMicros(histogram.getValueAtPercentile(99.0)).trim())));
+
+		final long elapsed = TimeUnit.MILLISECONDS.toSeconds(now - start);
+		ALog.info("%cyan(PROGRESS [{}]) active=[{}] rq/s=[{}] errors=[{}/{}] p50=[{}] p95=[{}] p99=[{}]{}",
+			String.format("%02d:%02d:%02d", elapsed / 3600, (elapsed % 3600) / 60, elapsed % 60),
+			Parallel.getActiveWorkers(),
+			String.format("%.1f", total.getTotalCount() / seconds),
+			intervalErrors, errors,
+			readableMicros(total.getValueAtPercentile(50.0)).trim(),
+			readableMicros(total.getValueAtPercentile(95.0)).trim(),
+			readableMicros(total.getValueAtPercentile(99.0)).trim(),
+			builder);
+	}
+}
@@ -0,0 +1,309 @@
+package org.devocative.artemis.ctx;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.HdrHistogram.Histogram;
+import org.devocative.artemis.ContextHandler;
+import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.Pool;
+import org.devocative.artemis.cfg.Stage;
+import org.devocative.artemis.log.ALog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the results in machine-readable files: <code>NAME-results.json</code> (run metadata, per-request
+ * aggregates, per-stage aggregates, and execution aggregates), <code>NAME-results.csv</code> (per-request aggregates),
+ * and <code>NAME-executions.csv</code>. All of them are written in streaming mode directly from the statistics, so
+ * no in-memory document is built, and the executions are appended to their file as they finish during the run, so
+ * they are not kept in memory. Latencies are in microseconds, and execution durations are in milliseconds.
+ */
+public class ResultExporter {
+	private static final String[] REQUEST_COLUMNS = {"stage", "id", "status", "protocol", "count", "avgUs", "p50Us", "p90Us",
+		"p99Us", "p999Us", "minUs", "minThread", "maxUs", "maxThread", "correctedP50Us", "correctedP90Us",
+		"correctedP99Us", "correctedP999Us", "correctedMaxUs"};
+
+	private final Config config;
+	private final String runId = UUID.randomUUID().toString();
+
+	private File execCsv;
+	private Writer execWriter;
+	private boolean execFailed = false;
+
+	// ------------------------------
+
+	public ResultExporter(Config config) {
+		this.config = config;
+	}
+
+	// ------------------------------
+
+	/**
+	 * Opens <code>NAME-executions.csv</code>, to which the executions are appended until <code>export()</code>
+	 */
+	public void start() {
+		final File dir = createDir();
+		if (dir == null) {
+			return;
+		}
+
+		try {
+			execCsv = new File(dir, config.getName() + "-executions.csv");
+			execWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(execCsv), StandardCharsets.UTF_8));
+			writeCsvRow(execWriter, "thread", "iteration", "durationMs", "error");
+			StatisticsContext.setExecListener(this::appendExecution);
+		} catch (IOException e) {
+			ALog.error("Export: {}", e.getMessage());
+		}
+	}
+
+	public void export(long start, long end) {
+		final boolean execExported = stop();
+
+		final File dir = createDir();
+		if (dir == null) {
+			return;
+		}
+
+		final List<StatisticsContext.StatSnapshot> requests = StatisticsContext.snapshot(false);
+		final List<StatisticsContext.StatSnapshot> stages = StatisticsContext.snapshot(true);
+
+		try {
+			final File json = new File(dir, config.getName() + "-results.json");
+			exportJson(json, start, end, requests, stages);
+
+			final File csv = new File(dir, config.getName() + "-results.csv");
+			exportRequestsCsv(csv, requests, stages);
+
+			if (execExported) {
+				ALog.info("Export: runId=[{}] files=[{}, {}, {}]", runId, json.getPath(), csv.getPath(), execCsv.getPath());
+			} else {
+				ALog.info("Export: runId=[{}] files=[{}, {}]", runId, json.getPath(), csv.getPath());
+			}
+		} catch (IOException e) {
+			ALog.error("Export: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops appending the executions and closes the file, also called if the run fails
+	 *
+	 * @return true if all the executions are written
+	 */
+	public synchronized boolean stop() {
+		StatisticsContext.setExecListener(null);
+
+		if (execWriter != null) {
+			try {
+				execWriter.close();
+			} catch (IOException e) {
+				ALog.error("Export: {}", e.getMessage());
+				execFailed = true;
+			}
+			execWriter = null;
+		}
+		return execCsv != null && !execFailed;
+	}
+
+	// ------------------------------
+
+	private synchronized void appendExecution(StatisticsContext.ExecRecord r) {
+		if (execWriter != null && !execFailed) {
+			try {
+				writeCsvRow(execWriter, r.getThread(), r.getIteration(), r.getDuration(), r.getError());
+			} catch (IOException e) {
+				ALog.error("Export: {}", e.getMessage());
+				execFailed = true;
+			}
+		}
+	}
+
+	private File createDir() {
+		final File dir = new File(config.getExportDir());
+		if (!dir.exists() && !dir.mkdirs()) {
+			ALog.error("Export: unable to create directory [{}]", dir.getAbsolutePath());
+			return null;
+		}
+		return dir;
+	}
+
+	private void exportJson(File file, long start, long end,
+							List<StatisticsContext.StatSnapshot> requests,
+							List<StatisticsContext.StatSnapshot> stages) throws IOException {
+		final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+		try (JsonGenerator gen = new JsonFactory().createGenerator(file, JsonEncoding.UTF8)) {
+			gen.useDefaultPrettyPrinter();
+
+			gen.writeStartObject();
+			gen.writeStringField("runId", runId);
+			gen.writeStringField("name", config.getName());
+			gen.writeStringField("start", iso.format(new Date(start)));
+			gen.writeStringField("end", iso.format(new Date(end)));
+			gen.writeNumberField("durationMs", end - start);
+
+			gen.writeObjectFieldStart("config");
+			gen.writeStringField("baseUrl", config.getBaseUrl());
+			writeNullable(gen, "parallel", config.getParallel());
+			writeNullable(gen, "loop", config.getLoop());
+			writeNullable(gen, "duration", config.getDuration());
+			writeNullable(gen, "rate", config.getRate());
+			writeNullable(gen, "maxConcurrency", config.getMaxConcurrency());
+			writeNullable(gen, "rateOverflow", config.getRateOverflow());
+			gen.writeArrayFieldStart("stages");
+			for (Stage stage : config.getStages()) {
+				gen.writeStartObject();
+				gen.writeStringField("duration", stage.getDuration());
+				writeNullable(gen, "target", stage.getTarget());
+				gen.writeEndObject();
+			}
+			gen.writeEndArray();
+			writeNullable(gen, "httpVersion", config.getHttpVersion());
+			writeNullable(gen, "virtualThreads", config.getVirtualThreads());
+			if (config.getPool() != null) {
+				final Pool pool = config.getPool();
+				gen.writeObjectFieldStart("pool");
+				writeNullable(gen, "maxTotal", pool.getMaxTotal());
+				writeNullable(gen, "maxPerRoute", pool.getMaxPerRoute());
+				writeNullable(gen, "idleEviction", pool.getIdleEviction());
+				writeNullable(gen, "timeToLive", pool.getTimeToLive());
+				writeNullable(gen, "keepAlive", pool.getKeepAlive());
+				writeNullable(gen, "validateAfterInactivity", pool.getValidateAfterInactivity());
+				gen.writeEndObject();
+			}
+			gen.writeEndObject();
+
+			gen.writeObjectFieldStart("summary");
+			gen.writeNumberField("executions", StatisticsContext.getExecutions());
+			gen.writeNumberField("errors", StatisticsContext.getErrors());
+			gen.writeBooleanField("corrected", StatisticsContext.isCorrected());
+			gen.writeNumberField("droppedLogEvents", ALog.getDroppedEvents());
+			gen.writeNumberField("fastTemplates", ContextHandler.getFastTemplates());
+			gen.writeNumberField("groovyTemplates", ContextHandler.getGroovyTemplates());
+			gen.writeEndObject();
+
+			gen.writeArrayFieldStart("requests");
+			for (StatisticsContext.StatSnapshot sr : requests) {
+				writeStat(gen, sr);
+			}
+			gen.writeEndArray();
+
+			gen.writeArrayFieldStart("stages");
+			for (StatisticsContext.StatSnapshot sr : stages) {
+				writeStat(gen, sr);
+			}
+			gen.writeEndArray();
+
+			gen.writeArrayFieldStart("pool");
+			for (StatisticsContext.StatSnapshot sr : StatisticsContext.poolSnapshot()) {
+				writeStat(gen, sr);
+			}
+			gen.writeEndArray();
+
+			final Histogram durations = StatisticsContext.getExecDurations();
+			gen.writeObjectFieldStart("executions");
+			gen.writeNumberField("count", durations.getTotalCount());
+			gen.writeNumberField("avgMs", (long) durations.getMean());
+			gen.writeNumberField("p50Ms", durations.getValueAtPercentile(50.0));
+			gen.writeNumberField("p90Ms", durations.getValueAtPercentile(90.0));
+			gen.writeNumberField("p99Ms", durations.getValueAtPercentile(99.0));
+			gen.writeNumberField("minMs", durations.getTotalCount() > 0 ? durations.getMinValue() : 0);
+			gen.writeNumberField("maxMs", durations.getMaxValue());
+			gen.writeEndObject();
+
+			gen.writeEndObject();
+		}
+	}
+
+	private void writeStat(JsonGenerator gen, StatisticsContext.StatSnapshot sr) throws IOException {
+		gen.writeStartObject();
+		writeNullable(gen, "stage", sr.getStage());
+		gen.writeStringField("id", sr.getId());
+		gen.writeNumberField("status", sr.getStatus());
+		writeNullable(gen, "protocol", sr.getProtocol());
+		gen.writeNumberField("count", sr.getCount());
+		gen.writeNumberField("avgUs", sr.getAvg());
+		gen.writeNumberField("p50Us", sr.getP50());
+		gen.writeNumberField("p90Us", sr.getP90());
+		gen.writeNumberField("p99Us", sr.getP99());
+		gen.writeNumberField("p999Us", sr.getP999());
+		gen.writeNumberField("minUs", sr.getMin());
+		gen.writeStringField("minThread", sr.getMinName());
+		gen.writeNumberField("maxUs", sr.getMax());
+		gen.writeStringField("maxThread", sr.getMaxName());
+		if (StatisticsContext.isCorrected()) {
+			gen.writeNumberField("correctedP50Us", sr.getCorrectedP50());
+			gen.writeNumberField("correctedP90Us", sr.getCorrectedP90());
+			gen.writeNumberField("correctedP99Us", sr.getCorrectedP99());
+			gen.writeNumberField("correctedP999Us", sr.getCorrectedP999());
+			gen.writeNumberField("correctedMaxUs", sr.getCorrectedMax());
+		}
+		gen.writeEndObject();
+	}
+
+	private void exportRequestsCsv(File file,
+								   List<StatisticsContext.StatSnapshot> requests,
+								   List<StatisticsContext.StatSnapshot> stages) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			writeCsvRow(writer, (Object[]) REQUEST_COLUMNS);
+
+			final boolean corrected = StatisticsContext.isCorrected();
+			for (StatisticsContext.StatSnapshot sr : (Iterable<StatisticsContext.StatSnapshot>) Stream.concat(requests.stream(), stages.stream())::iterator) {
+				writeCsvRow(writer, sr.getStage(), sr.getId(), sr.getStatus(), sr.getProtocol(), sr.getCount(), sr.getAvg(),
+					sr.getP50(), sr.getP90(), sr.getP99(), sr.getP999(), sr.getMin(), sr.getMinName(), sr.getMax(),
+					sr.getMaxName(),
+					corrected ? sr.getCorrectedP50() : null,
+					corrected ? sr.getCorrectedP90() : null,
+					corrected ? sr.getCorrectedP99() : null,
+					corrected ? sr.getCorrectedP999() : null,
+					corrected ? sr.getCorrectedMax() : null);
+			}
+		}
+	}
+
+	// ------------------------------
+
+	private static void writeNullable(JsonGenerator gen, String field, Object value) throws IOException {
+		if (value == null) {
+			gen.writeNullField(field);
+		} else if (value instanceof Boolean) {
+			gen.writeBooleanField(field, (Boolean) value);
+		} else if (value instanceof Number) {
+			gen.writeFieldName(field);
+			if (value instanceof Double) {
+				gen.writeNumber((Double) value);
+			} else {
+				gen.writeNumber(((Number) value).longValue());
+			}
+		} else {
+			gen.writeStringField(field, value.toString());
+		}
+	}
+
+	private static void writeCsvRow(Writer writer, Object... cells) throws IOException {
+		writer.write(Stream.of(cells)
+			.map(ResultExporter::csvCell)
+			.collect(Collectors.joining(",")));
+		writer.write("\n");
+	}
+
+	private static String csvCell(Object cell) {
+		if (cell == null) {
+			return "";
+		}
+
+		final String str = cell.toString();
+		if (str.contains(",") || str.contains("\"") || str.contains("\n") || str.contains("\r")) {
+			return "\"" + str.replace("\"", "\"\"") + "\"";
+		}
+		return str;
+	}
+}
@@ -1,38 +1,265 @@
 package org.devocative.artemis.ctx;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.devocative.artemis.CompiledCache;
+import org.devocative.artemis.ContextHandler;
 import org.devocative.artemis.log.ALog;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.Math.max;
 
 public class StatisticsContext {
-	private static final List<ExecRecord> EXEC_RECORDS = Collections.synchronizedList(new ArrayList<>());
-	private static final List<RecordList> ALL_LISTS = Collections.synchronizedList(new ArrayList<>());
+	private static final int SIGNIFICANT_DIGITS = 3;
+	private static final int MAX_EXEC_RECORDS = 1000;
+
+	// NOTE: only the first MAX_EXEC_RECORDS executions are kept for the report, and all of them are aggregated in
+	// EXEC_DURATIONS and passed to the EXEC_LISTENER (e.g. streamed to a file by ResultExporter)
+	private static final Queue<ExecRecord> EXEC_RECORDS = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger EXEC_RECORDS_SIZE = new AtomicInteger(0);
+	private static final Recorder EXEC_DURATIONS = new Recorder(SIGNIFICANT_DIGITS);
+	private static final Histogram EXEC_HISTOGRAM = new Histogram(SIGNIFICANT_DIGITS);
+	private static final Map<String, StatRecord> STATS = new ConcurrentHashMap<>();
+	private static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+	private static final AtomicInteger STAT_SEQ = new AtomicInteger(0);
+	private static final LongAdder EXECUTIONS = new LongAdder();
+	private static final LongAdder ERRORS = new LongAdder();
 	private static final ThreadLocal<RecordList> CTX = new ThreadLocal<>();
+	private static final ThreadLocal<Long> INTENDED_START = new ThreadLocal<>();
+
+	private static volatile Consumer<ExecRecord> EXEC_LISTENER = null;
+	private static volatile String CURRENT_STAGE = null;
+	private static volatile boolean CORRECTED = false;
+	private static volatile StatRecord POOL_WAIT = new StatRecord(null, "Pool Wait", 0);
+	private static volatile StatRecord POOL_LEASE = new StatRecord(null, "Pool Lease", 0);
 
 	// ------------------------------
 
-	public static void add(String id, String method, String uri, int status, long duration) {
+	/**
+	 * Updates the request's aggregated statistics without any global lock (constant memory), and keeps the request in
+	 * the current execution's list, which is cleared by <code>execFinished()</code>.
+	 *
+	 * @param protocol the response's protocol version, e.g. <code>HTTP/1.1</code> or <code>HTTP/2.0</code>
+	 * @param duration in microseconds
+	 */
+	public static void add(String id, String method, String uri, int status, String protocol, long duration) {
+		final String threadName = Thread.currentThread().getName();
+		THREADS.add(threadName);
+
+		// NOTE: only the first request of an iteration has an intended start before its actual one, since each next
+		// request is intended to be sent after the response of its previous one
+		final Long intendedStart = INTENDED_START.get();
+		final long corrected;
+		if (intendedStart != null) {
+			corrected = max(duration, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+			INTENDED_START.remove();
+		} else {
+			corrected = duration;
+		}
+
+		final StatRecord stat = getStat(null, id, status);
+		stat.record(duration, corrected, threadName);
+		stat.protocol(protocol);
+
+		final String stage = CURRENT_STAGE;
+		if (stage != null) {
+			final StatRecord stageStat = getStat(stage, id, status);
+			stageStat.record(duration, corrected, threadName);
+			stageStat.protocol(protocol);
+		}
+
 		if (CTX.get() == null) {
-			CTX.set(createList());
+			CTX.set(new RecordList());
 		}
 		CTX.get()
-			.add(new Record(id, method, uri, status, duration, Thread.currentThread().getName()));
+			.add(new Record(id, method, uri, status, protocol, duration));
+	}
+
+	/**
+	 * For paced (rate-based) executions: the corrected latency of the iteration's first request is measured from the
+	 * intended start of the iteration, so a stalled target, which delays the next iterations, is not hidden
+	 * (coordinated omission). The next requests are intended to start right after their previous one, so their
+	 * corrected latency is the same as the measured one. The closed-loop executions are not corrected.
+	 *
+	 * @param intendedStart the intended start, based on <code>System.nanoTime()</code>
+	 */
+	public static void iterationScheduled(long intendedStart) {
+		INTENDED_START.set(intendedStart);
+		CORRECTED = true;
+	}
+
+	public static void stageStarted(String stage) {
+		CURRENT_STAGE = stage;
+		ALog.info("%purple(=============== [STAGE {}] ===============)", stage);
 	}
 
 	public static void execFinished(Integer iteration, long duration, String error) {
-		EXEC_RECORDS.add(new ExecRecord(Thread.currentThread().getName(), iteration, duration, error));
+		final ExecRecord record = new ExecRecord(Thread.currentThread().getName(), iteration, duration, error);
+		if (EXEC_RECORDS_SIZE.get() < MAX_EXEC_RECORDS && EXEC_RECORDS_SIZE.incrementAndGet() <= MAX_EXEC_RECORDS) {
+			EXEC_RECORDS.add(record);
+		}
+		EXEC_DURATIONS.recordValue(max(duration, 0));
+
+		final Consumer<ExecRecord> listener = EXEC_LISTENER;
+		if (listener != null) {
+			listener.accept(record);
+		}
+
+		EXECUTIONS.increment();
+		if (error != null && !error.isEmpty()) {
+			ERRORS.increment();
+		}
+		CTX.remove();
+		INTENDED_START.remove();
+	}
+
+	/**
+	 * For the async executions: moves the state of the current execution off the current thread, so it can be
+	 * attached to the thread of its next step
+	 */
+	public static ExecState detach() {
+		final ExecState state = new ExecState(CTX.get(), INTENDED_START.get());
+		CTX.remove();
+		INTENDED_START.remove();
+		return state;
 	}
 
-	public static void printAll() {
-		if (ALL_LISTS.size() > 1) {
+	/**
+	 * @param state returned by <code>detach()</code>, or null for a new execution
+	 */
+	public static void attach(ExecState state) {
+		if (state != null && state.records != null) {
+			CTX.set(state.records);
+		} else {
+			CTX.remove();
+		}
+
+		if (state != null && state.intendedStart != null) {
+			INTENDED_START.set(state.intendedStart);
+		} else {
+			INTENDED_START.remove();
+		}
+	}
+
+	/**
+	 * For the shared connection pool: the time waited for a free connection
+	 *
+	 * @param wait in microseconds
+	 */
+	public static void poolLeased(long wait) {
+		POOL_WAIT.record(wait, wait, Thread.currentThread().getName());
+	}
+
+	/**
+	 * For the shared connection pool: the time a connection was held by a request
+	 *
+	 * @param lease in microseconds
+	 */
+	public static void poolReleased(long lease) {
+		POOL_LEASE.record(lease, lease, Thread.currentThread().getName());
+	}
+
+	/**
+	 * Receives every finished execution, on the thread of the execution
+	 *
+	 * @param listener null to remove the current one
+	 */
+	static void setExecListener(Consumer<ExecRecord> listener) {
+		EXEC_LISTENER = listener;
+	}
+
+	public static long getExecutions() {
+		return EXECUTIONS.sum();
+	}
+
+	public static long getErrors() {
+		return ERRORS.sum();
+	}
+
+	/**
+	 * The latency histograms of each request global id since the previous call, used for periodic reports
+	 */
+	public static Map<String, Histogram> takeIntervals() {
+		final Map<String, Histogram> result = new LinkedHashMap<>();
+		STATS.values().stream()
+			.filter(sr -> sr.stage == null)
+			.sorted(Comparator.comparingInt(sr -> sr.seq))
+			.forEach(sr -> result.put(sr.id, sr.takeInterval()));
+		return result;
+	}
+
+	/**
+	 * The current statistics, overall ones (<code>byStage = false</code>) or per-stage ones, in the order of first
+	 * appearance. It can be called at any moment of the execution.
+	 */
+	public static List<StatSnapshot> snapshot(boolean byStage) {
+		return STATS.values().stream()
+			.filter(sr -> (sr.stage != null) == byStage)
+			.sorted(byStage ?
+				Comparator.<StatRecord, String>comparing(sr -> sr.stage).thenComparingInt(sr -> sr.seq) :
+				Comparator.comparingInt(sr -> sr.seq))
+			.map(StatRecord::snapshot)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * The wait and lease times of the shared connection pool, empty if it is not used
+	 */
+	public static List<StatSnapshot> poolSnapshot() {
+		return Stream.of(POOL_WAIT, POOL_LEASE)
+			.map(StatRecord::snapshot)
+			.filter(sr -> sr.count > 0)
+			.collect(Collectors.toList());
+	}
+
+	public static boolean isCorrected() {
+		return CORRECTED;
+	}
+
+	/**
+	 * The durations (in milliseconds) of all the executions so far
+	 */
+	static synchronized Histogram getExecDurations() {
+		EXEC_HISTOGRAM.add(EXEC_DURATIONS.getIntervalHistogram());
+		return EXEC_HISTOGRAM.copy();
+	}
+
+	/**
+	 * @param loadRun whether it is a load run (i.e. duration, rate, stages or parallel &gt; 1), regardless of the
+	 *                number of threads, so e.g. a duration run with a single thread also prints its statistics
+	 */
+	public static void printAll(boolean loadRun) {
+		if (loadRun) {
 			ALog.info("%green(//===============[ STATISTICS ]===============\\\\)");
 			printAllList();
+			printCache(ContextHandler.getTemplates());
+			printCache(ContextHandler.getScripts());
+			ALog.info("Templates: fast=[{}], groovy=[{}]", ContextHandler.getFastTemplates(), ContextHandler.getGroovyTemplates());
 			ALog.info("%green(\\\\============================================//)");
 		}
-		ALL_LISTS.clear();
+		EXEC_RECORDS.clear();
+		EXEC_RECORDS_SIZE.set(0);
+		resetExecDurations();
+		EXECUTIONS.reset();
+		ERRORS.reset();
+		STATS.clear();
+		THREADS.clear();
+		CURRENT_STAGE = null;
+		CORRECTED = false;
+		POOL_WAIT = new StatRecord(null, "Pool Wait", 0);
+		POOL_LEASE = new StatRecord(null, "Pool Lease", 0);
 	}
 
 	public static void printThis(long duration) {
@@ -44,60 +271,136 @@ public class StatisticsContext {
 
 	// ------------------------------
 
-	private synchronized static RecordList createList() {
-		final RecordList list = new RecordList();
-		ALL_LISTS.add(list);
-		return list;
+	private static synchronized void resetExecDurations() {
+		EXEC_DURATIONS.reset();
+		EXEC_HISTOGRAM.reset();
+	}
+
+	private static StatRecord getStat(String stage, String id, int status) {
+		final String key = stage != null ? stage + "|" + id + "|" + status : id + "|" + status;
+
+		// NOTE: lock-free get() first, since computeIfAbsent() may lock the bin even if the key exists
+		final StatRecord stat = STATS.get(key);
+		return stat != null ? stat : STATS.computeIfAbsent(key, k -> new StatRecord(stage, id, status));
 	}
 
 	private static void printOne(RecordList list) {
-		final Tabular t = new Tabular("ID", "URI", "Method", "Status", "Duration");
-		list.forEach(r -> t.addRow(r.id, r.uri, r.method, String.valueOf(r.status), readableDuration(r.duration)));
+		final Tabular t = new Tabular("ID", "URI", "Method", "Status", "Protocol", "Duration");
+		if (list != null) {
+			list.forEach(r -> t.addRow(r.id, r.uri, r.method, String.valueOf(r.status), r.protocol, readableMicros(r.duration)));
+		}
 		t.print();
 	}
 
 	private static void printAllList() {
-		Collections.sort(EXEC_RECORDS);
+		final List<ExecRecord> execRecords = new ArrayList<>(EXEC_RECORDS);
+		Collections.sort(execRecords);
 		final Tabular execStat = new Tabular("Th", "It", "Duration", "Error");
-		EXEC_RECORDS.forEach(r -> execStat.addRow(r.thread, String.valueOf(r.iteration), readableDuration(r.duration), r.error));
+		execRecords.forEach(r -> execStat.addRow(r.thread, String.valueOf(r.iteration), readableDuration(r.duration), r.error));
 		execStat.print();
 
-		final Map<String, StatRecord> map = new LinkedHashMap<>();
-		for (RecordList allList : ALL_LISTS) {
-			for (final Record r : allList) {
-				final String key = r.id + r.status;
-
-				if (map.containsKey(key)) {
-					final StatRecord sr = map.get(key);
-					sr.count++;
-					sr.durSum += r.duration;
-					if (sr.min > r.duration) {
-						sr.min = r.duration;
-						sr.minName = r.threadName;
-					}
-					if (sr.max < r.duration) {
-						sr.max = r.duration;
-						sr.maxName = r.threadName;
-					}
-				} else {
-					map.put(key, new StatRecord(r));
-				}
-			}
+		final long executions = EXECUTIONS.sum();
+		if (executions > execRecords.size()) {
+			final Histogram durations = getExecDurations();
+			ALog.info("Executions: count=[{}] (first {} listed), errors=[{}], avg=[{}], p50=[{}], p90=[{}], p99=[{}], max=[{}]",
+				executions, execRecords.size(), ERRORS.sum(),
+				readableDuration((long) durations.getMean()),
+				readableDuration(durations.getValueAtPercentile(50.0)),
+				readableDuration(durations.getValueAtPercentile(90.0)),
+				readableDuration(durations.getValueAtPercentile(99.0)),
+				readableDuration(durations.getMaxValue()));
 		}
 
-		final Tabular stepsStat = new Tabular("ID", "Status", "Avg", "Count", "Min", "Min(th)", "Max", "Max(th)");
-		map.values().forEach(sr ->
+		final Tabular stepsStat = new Tabular("ID", "Status", "Protocol", "Count", "Avg", "P50", "P90", "P99", "P99.9",
+			"Min", "Min(th)", "Max", "Max(th)");
+		snapshot(false).forEach(sr ->
 			stepsStat.addRow(
 				sr.id,
 				String.valueOf(sr.status),
-				readableDuration((long) (sr.durSum / sr.count)),
+				sr.protocol,
 				String.valueOf(sr.count),
-				readableDuration(sr.min),
+				readableMicros(sr.avg),
+				readableMicros(sr.p50),
+				readableMicros(sr.p90),
+				readableMicros(sr.p99),
+				readableMicros(sr.p999),
+				readableMicros(sr.min),
 				String.format("[%s]", sr.minName),
-				readableDuration(sr.max),
+				readableMicros(sr.max),
 				String.format("[%s]", sr.maxName)
 			));
 		stepsStat.print();
+
+		if (CORRECTED) {
+			ALog.info("Corrected Latency (from intended start time):");
+			final Tabular correctedStat = new Tabular("ID", "Status", "P50", "P50(c)", "P90", "P90(c)",
+				"P99", "P99(c)", "P99.9", "P99.9(c)", "Max", "Max(c)");
+			snapshot(false).forEach(sr ->
+				correctedStat.addRow(
+					sr.id,
+					String.valueOf(sr.status),
+					readableMicros(sr.p50),
+					readableMicros(sr.correctedP50),
+					readableMicros(sr.p90),
+					readableMicros(sr.correctedP90),
+					readableMicros(sr.p99),
+					readableMicros(sr.correctedP99),
+					readableMicros(sr.p999),
+					readableMicros(sr.correctedP999),
+					readableMicros(sr.max),
+					readableMicros(sr.correctedMax)
+				));
+			correctedStat.print();
+		}
+
+		if (CURRENT_STAGE != null) {
+			final Tabular stageStat = new Tabular("Stage", "ID", "Status", "Count", "Avg", "P50", "P90", "P99", "Max");
+			snapshot(true).forEach(sr ->
+				stageStat.addRow(
+					sr.stage,
+					sr.id,
+					String.valueOf(sr.status),
+					String.valueOf(sr.count),
+					readableMicros(sr.avg),
+					readableMicros(sr.p50),
+					readableMicros(sr.p90),
+					readableMicros(sr.p99),
+					readableMicros(sr.max)
+				));
+			stageStat.print();
+		}
+
+		final List<StatSnapshot> poolStats = poolSnapshot();
+		if (!poolStats.isEmpty()) {
+			final Tabular poolStat = new Tabular("Connection", "Count", "Avg", "P50", "P90", "P99", "Max", "Max(th)");
+			poolStats.forEach(sr ->
+				poolStat.addRow(
+					sr.id,
+					String.valueOf(sr.count),
+					readableMicros(sr.avg),
+					readableMicros(sr.p50),
+					readableMicros(sr.p90),
+					readableMicros(sr.p99),
+					readableMicros(sr.max),
+					String.format("[%s]", sr.maxName)
+				));
+			poolStat.print();
+		}
+	}
+
+	private static void printCache(CompiledCache<?> cache) {
+		if (cache != null) {
+			ALog.info("{}", cache);
+		}
+	}
+
+	public static String readableMicros(long micros) {
+		if (micros < 1000) {
+			return String.format("%5d us", micros);
+		} else if (micros < 1_000_000) {
+			return String.format("%5.1f ms", micros / 1000.0);
+		}
+		return readableDuration(micros / 1000);
 	}
 
 	public static String readableDuration(long duration) {
@@ -116,39 +419,150 @@ public class StatisticsContext {
 
 	// ------------------------------
 
+	@Getter
+	@RequiredArgsConstructor
+	public static class StatSnapshot {
+		private final String stage;
+		private final String id;
+		private final int status;
+		private final String protocol;
+		private final long count;
+		private final long avg;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long p999;
+		private final long min;
+		private final String minName;
+		private final long max;
+		private final String maxName;
+		private final long correctedP50;
+		private final long correctedP90;
+		private final long correctedP99;
+		private final long correctedP999;
+		private final long correctedMax;
+	}
+
+	@RequiredArgsConstructor
+	public static class ExecState {
+		private final RecordList records;
+		private final Long intendedStart;
+	}
+
 	@RequiredArgsConstructor
 	private static class Record {
 		private final String id;
 		private final String method;
 		private final String uri;
 		private final int status;
+		private final String protocol;
 		private final long duration;
+	}
+
+	@RequiredArgsConstructor
+	private static class Extreme {
+		private final long value;
 		private final String threadName;
 	}
 
 	private static class StatRecord {
+		private final int seq = STAT_SEQ.getAndIncrement();
+		private final String stage;
 		private final String id;
 		private final int status;
-		private double durSum;
-		private int count = 1;
-		private long max;
-		private String maxName;
-		private long min;
-		private String minName;
 
-		public StatRecord(Record r) {
-			id = r.id;
-			status = r.status;
-			durSum = r.duration;
-			max = r.duration;
-			min = r.duration;
-			maxName = r.threadName;
-			minName = r.threadName;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final AtomicReference<Extreme> min = new AtomicReference<>();
+		private final AtomicReference<Extreme> max = new AtomicReference<>();
+		private final Set<String> protocols = ConcurrentHashMap.newKeySet();
+
+		// NOTE: Recorder is wait-free for the writers, and its intervals are accumulated in the histogram
+		private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+		private final Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+		private final Histogram interval = new Histogram(SIGNIFICANT_DIGITS);
+		private Histogram recycled;
+
+		private final Recorder correctedRecorder = new Recorder(SIGNIFICANT_DIGITS);
+		private final Histogram corrected = new Histogram(SIGNIFICANT_DIGITS);
+
+		public StatRecord(String stage, String id, int status) {
+			this.stage = stage;
+			this.id = id;
+			this.status = status;
+		}
+
+		public void record(long duration, long correctedDuration, String threadName) {
+			count.increment();
+			sum.add(duration);
+			recorder.recordValue(duration);
+			correctedRecorder.recordValue(correctedDuration);
+
+			updateExtreme(min, duration, threadName, -1);
+			updateExtreme(max, duration, threadName, 1);
+		}
+
+		public void protocol(String protocol) {
+			// NOTE: lock-free contains() first, since it is mostly the same protocol
+			if (protocol != null && !protocols.contains(protocol)) {
+				protocols.add(protocol);
+			}
+		}
+
+		public synchronized Histogram takeInterval() {
+			flush();
+			final Histogram result = interval.copy();
+			interval.reset();
+			return result;
+		}
+
+		private void flush() {
+			recycled = recorder.getIntervalHistogram(recycled);
+			histogram.add(recycled);
+			interval.add(recycled);
+		}
+
+		// sign: -1 for min, 1 for max
+		private void updateExtreme(AtomicReference<Extreme> ref, long duration, String threadName, int sign) {
+			Extreme current = ref.get();
+			while (current == null || Long.compare(duration, current.value) == sign) {
+				if (ref.compareAndSet(current, new Extreme(duration, threadName))) {
+					return;
+				}
+				current = ref.get();
+			}
+		}
+
+		public synchronized StatSnapshot snapshot() {
+			flush();
+			corrected.add(correctedRecorder.getIntervalHistogram());
+
+			final long cnt = count.sum();
+			final Extreme mn = min.get();
+			final Extreme mx = max.get();
+			return new StatSnapshot(stage, id, status,
+				protocols.isEmpty() ? null : protocols.stream().sorted().collect(Collectors.joining(",")),
+				cnt,
+				cnt > 0 ? sum.sum() / cnt : 0,
+				histogram.getValueAtPercentile(50.0),
+				histogram.getValueAtPercentile(90.0),
+				histogram.getValueAtPercentile(99.0),
+				histogram.getValueAtPercentile(99.9),
+				mn != null ? mn.value : 0,
+				mn != null ? mn.threadName : null,
+				mx != null ? mx.value : 0,
+				mx != null ? mx.threadName : null,
+				corrected.getValueAtPercentile(50.0),
+				corrected.getValueAtPercentile(90.0),
+				corrected.getValueAtPercentile(99.0),
+				corrected.getValueAtPercentile(99.9),
+				corrected.getMaxValue());
 		}
 	}
 
+	@Getter
 	@RequiredArgsConstructor
-	private static class ExecRecord implements Comparable<ExecRecord> {
+	static class ExecRecord implements Comparable<ExecRecord> {
 		private final String thread;
 		private final Integer iteration;
 		private final long duration;
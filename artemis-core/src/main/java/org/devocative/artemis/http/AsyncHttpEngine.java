@@ -0,0 +1,115 @@
+package org.devocative.artemis.http;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.io.CloseMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * One shared async client, so the requests of all the users are handled by a few I/O reactor threads, and with HTTP/2,
+ * the requests to a route are multiplexed as streams over one connection. With <code>executeAsync()</code>, no thread
+ * waits on the response. The blocking <code>execute()</code> is for the <code>Classic</code> engine with HTTP/2.
+ */
+class AsyncHttpEngine implements IHttpEngine {
+	private final CloseableHttpAsyncClient httpClient;
+
+	// ------------------------------
+
+	AsyncHttpEngine(CloseableHttpAsyncClient httpClient) {
+		this.httpClient = httpClient;
+		this.httpClient.start();
+	}
+
+	// ------------------------------
+
+	@Override
+	public HttpRawResponse execute(HttpUriRequestBase request, HttpClientContext context, ResponseBody body) throws IOException {
+		final CompletableFuture<HttpRawResponse> future = executeAsync(request, context, body);
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	// NOTE: the callback runs on an I/O reactor thread, so it only wraps the body, and the rest is up to the caller
+	@Override
+	public CompletableFuture<HttpRawResponse> executeAsync(HttpUriRequestBase request, HttpClientContext context, ResponseBody body) {
+		final CompletableFuture<HttpRawResponse> result = new CompletableFuture<>();
+
+		final SimpleHttpRequest simpleRq;
+		try {
+			simpleRq = SimpleHttpRequest.create(request.getMethod(), request.getUri());
+			simpleRq.setHeaders(request.getHeaders());
+
+			final HttpEntity entity = request.getEntity();
+			if (entity != null) {
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				entity.writeTo(out);
+				simpleRq.setBody(out.toByteArray(), entity.getContentType() != null ? ContentType.parse(entity.getContentType()) : null);
+			}
+		} catch (URISyntaxException e) {
+			result.completeExceptionally(new RuntimeException(e));
+			return result;
+		} catch (IOException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		httpClient.execute(simpleRq, context, new FutureCallback<SimpleHttpResponse>() {
+			@Override
+			public void completed(SimpleHttpResponse rs) {
+				try {
+					final Header contentType = rs.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+					body.wrap(rs.getBodyBytes(), contentType != null ? contentType.getValue() : null);
+					result.complete(new HttpRawResponse(
+						rs.getCode(),
+						contentType != null ? contentType.getValue() : null,
+						body,
+						context.getProtocolVersion() != null ? context.getProtocolVersion().format() : null));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel(false);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public void close() {
+		httpClient.close(CloseMode.GRACEFUL);
+	}
+}
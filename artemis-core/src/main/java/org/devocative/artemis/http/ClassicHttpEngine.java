@@ -0,0 +1,42 @@
+package org.devocative.artemis.http;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpEntity;
+
+import java.io.IOException;
+
+/**
+ * The blocking engine: one client per thread, and the thread is held during the request
+ */
+@RequiredArgsConstructor
+class ClassicHttpEngine implements IHttpEngine {
+	private final CloseableHttpClient httpClient;
+
+	// ------------------------------
+
+	@Override
+	public HttpRawResponse execute(HttpUriRequestBase request, HttpClientContext context, ResponseBody body) throws IOException {
+		try (final CloseableHttpResponse rs = httpClient.execute(request, context)) {
+			final HttpEntity entity = rs.getEntity();
+			if (entity != null) {
+				body.read(entity.getContent(), entity.getContentLength(), entity.getContentType());
+			} else {
+				body.read(null, 0, null);
+			}
+			return new HttpRawResponse(
+				rs.getCode(),
+				entity != null ? entity.getContentType() : null,
+				body,
+				rs.getVersion() != null ? rs.getVersion().format() : null);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+}
@@ -1,49 +1,80 @@
 package org.devocative.artemis.http;
 
 import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
 import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.ssl.SSLContexts;
 import org.apache.hc.core5.ssl.TrustStrategy;
+import org.apache.hc.core5.util.TimeValue;
 import org.devocative.artemis.TestFailedException;
+import org.devocative.artemis.Util;
+import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.Pool;
 import org.devocative.artemis.log.ALog;
-import org.devocative.artemis.xml.XBaseRequest;
+import org.devocative.artemis.plan.PRequest;
 
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class HttpFactory {
-	private static final ThreadLocal<CloseableHttpClient> CURRENT_CLIENT = new ThreadLocal<>();
+	private static final int ASYNC_MAX_CONNECTIONS = 10_000;
+
+	private static final ThreadLocal<IHttpEngine> CURRENT_CLIENT = new ThreadLocal<>();
+	private static final List<IHttpEngine> ALL_CLIENTS = Collections.synchronizedList(new ArrayList<>());
 
 	private final String baseUrl;
 	private final String proxy;
+	private final Pool pool;
+	private final EHttpVersion version;
+	private final EHttpEngine engine;
+
+	private volatile IHttpEngine asyncEngine;
+	private volatile IHttpEngine pooledEngine;
 
 	// ------------------------------
 
-	public HttpFactory(String baseUrl, String proxy) {
-		this.baseUrl = baseUrl;
-		this.proxy = proxy;
+	public HttpFactory(Config config) {
+		this.baseUrl = config.getBaseUrl();
+		this.proxy = config.getProxy();
+		this.pool = config.getPool();
+		this.version = config.getHttpVersion();
+		this.engine = config.getHttpEngine();
 	}
 
 	// ------------------------------
 
 	public void shutdown() {
 		try {
-			final CloseableHttpClient httpclient = CURRENT_CLIENT.get();
+			final IHttpEngine httpclient = CURRENT_CLIENT.get();
 			if (httpclient != null) {
+				ALL_CLIENTS.remove(httpclient);
 				httpclient.close();
 			}
 			CURRENT_CLIENT.remove();
@@ -52,9 +83,26 @@ public class HttpFactory {
 		}
 	}
 
-	public HttpRequest create(XBaseRequest rq) {
-		final String url = rq.getUrl();
+	// Closes the remaining clients: the ones of reused pool threads (open model), and the shared async/pooled ones
+	public void shutdownAll() {
+		synchronized (ALL_CLIENTS) {
+			for (IHttpEngine httpclient : ALL_CLIENTS) {
+				try {
+					httpclient.close();
+				} catch (IOException e) {
+					ALog.warn("Closing HttpClient: {}", e.getMessage());
+				}
+			}
+			ALL_CLIENTS.clear();
+		}
 
+		synchronized (this) {
+			asyncEngine = null;
+			pooledEngine = null;
+		}
+	}
+
+	public HttpRequest create(PRequest rq, String url, List<NameValuePair> urlParams) {
 		final String finalUrl;
 		if (url.startsWith("http://") || url.startsWith("https://")) {
 			finalUrl = url;
@@ -65,29 +113,27 @@ public class HttpFactory {
 		}
 
 		final URI uri;
-		if (rq.getUrlParams().isEmpty()) {
+		if (urlParams.isEmpty()) {
 			uri = URI.create(finalUrl);
 		} else {
 			try {
 				final URIBuilder builder = new URIBuilder(finalUrl);
-				rq.getUrlParams().forEach(param -> builder.addParameter(param.getName(), param.getValue()));
+				builder.addParameters(urlParams);
 				uri = builder.build();
 			} catch (URISyntaxException e) {
 				throw new TestFailedException(rq.getId(), "Invalid URI to Build");
 			}
 		}
 
-		final CloseableHttpClient httpclient;
-		if (CURRENT_CLIENT.get() == null) {
+		final IHttpEngine httpclient;
+		if (version != EHttpVersion.Http1 || engine == EHttpEngine.Async) {
+			httpclient = getAsyncEngine();
+		} else if (pool != null) {
+			httpclient = getPooledEngine();
+		} else if (CURRENT_CLIENT.get() == null) {
 			final SocketProxy socketProxy = new SocketProxy(proxy);
 
-			final Registry<ConnectionSocketFactory> reg = RegistryBuilder
-				.<ConnectionSocketFactory>create()
-				.register("http", new ProxiedConnectionSocketFactory(socketProxy))
-				.register("https", new ProxiedSslConnectionSocketFactory(socketProxy))
-				.build();
-
-			final PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(reg);
+			final PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(createRegistry(socketProxy));
 
 			final HttpClientBuilder clientBuilder = HttpClients
 				.custom()
@@ -97,9 +143,10 @@ public class HttpFactory {
 				clientBuilder.setRoutePlanner(new DefaultProxyRoutePlanner(socketProxy.createHttpProxy()));
 			}
 
-			httpclient = clientBuilder.build();
+			httpclient = new ClassicHttpEngine(clientBuilder.build());
 
 			CURRENT_CLIENT.set(httpclient);
+			ALL_CLIENTS.add(httpclient);
 		} else {
 			httpclient = CURRENT_CLIENT.get();
 		}
@@ -109,6 +156,133 @@ public class HttpFactory {
 
 	// ------------------------------
 
+	// NOTE: lock-free after the creation, since it is called by all the threads on each request
+	private IHttpEngine getAsyncEngine() {
+		final IHttpEngine current = asyncEngine;
+		return current != null ? current : createAsyncEngine();
+	}
+
+	private IHttpEngine getPooledEngine() {
+		final IHttpEngine current = pooledEngine;
+		return current != null ? current : createPooledEngine();
+	}
+
+	private synchronized IHttpEngine createAsyncEngine() {
+		if (asyncEngine == null) {
+			final SocketProxy socketProxy = new SocketProxy(proxy);
+
+			final PoolingAsyncClientConnectionManager cm = PoolingAsyncClientConnectionManagerBuilder.create()
+				.setTlsStrategy(ClientTlsStrategyBuilder.create()
+					.setSslContext(createSslContext())
+					.setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+					.build())
+				.setMaxConnPerRoute(pool != null ? pool.getMaxPerRoute() : ASYNC_MAX_CONNECTIONS)
+				.setMaxConnTotal(pool != null ? pool.getMaxTotal() : ASYNC_MAX_CONNECTIONS)
+				.setConnectionTimeToLive(pool != null ? timeValue(pool.getTimeToLive(), TimeValue.NEG_ONE_MILLISECOND) : TimeValue.NEG_ONE_MILLISECOND)
+				.setValidateAfterInactivity(pool != null ? timeValue(pool.getValidateAfterInactivity(), TimeValue.NEG_ONE_MILLISECOND) : TimeValue.NEG_ONE_MILLISECOND)
+				.build();
+
+			final IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+				.setIoThreadCount(Runtime.getRuntime().availableProcessors());
+			if (socketProxy.isSet() && socketProxy.isSocks()) {
+				ioReactorConfig.setSocksProxyAddress(new InetSocketAddress(socketProxy.host, socketProxy.port));
+			}
+
+			final HttpAsyncClientBuilder clientBuilder = HttpAsyncClients
+				.custom()
+				.setConnectionManager(cm)
+				.setIOReactorConfig(ioReactorConfig.build())
+				.setVersionPolicy(versionPolicy())
+				.setH2Config(H2Config.custom()
+					.setPushEnabled(false)
+					.build());
+
+			if (socketProxy.isSet() && socketProxy.isHttp()) {
+				clientBuilder.setRoutePlanner(new DefaultProxyRoutePlanner(socketProxy.createHttpProxy()));
+			}
+
+			asyncEngine = new AsyncHttpEngine(clientBuilder.build());
+			ALL_CLIENTS.add(asyncEngine);
+
+			ALog.info("Async HTTP Engine: ioThreads=[{}], version=[{}], engine=[{}]", Runtime.getRuntime().availableProcessors(), version, engine);
+		}
+		return asyncEngine;
+	}
+
+	// One connection manager (and one TLS setup) shared by all the threads
+	private synchronized IHttpEngine createPooledEngine() {
+		if (pooledEngine == null) {
+			final SocketProxy socketProxy = new SocketProxy(proxy);
+
+			final TimedConnectionManager cm = new TimedConnectionManager(createRegistry(socketProxy),
+				timeValue(pool.getTimeToLive(), TimeValue.NEG_ONE_MILLISECOND));
+			cm.setMaxTotal(pool.getMaxTotal());
+			cm.setDefaultMaxPerRoute(pool.getMaxPerRoute());
+			cm.setValidateAfterInactivity(timeValue(pool.getValidateAfterInactivity(), TimeValue.NEG_ONE_MILLISECOND));
+
+			final HttpClientBuilder clientBuilder = HttpClients
+				.custom()
+				.setConnectionManager(cm)
+				.evictExpiredConnections();
+
+			if (pool.getIdleEviction() != null) {
+				clientBuilder.evictIdleConnections(timeValue(pool.getIdleEviction(), null));
+			}
+
+			// NOTE: the server's Keep-Alive header has precedence, and this one is the default
+			if (pool.getKeepAlive() != null) {
+				clientBuilder.setDefaultRequestConfig(RequestConfig.custom()
+					.setConnectionKeepAlive(timeValue(pool.getKeepAlive(), null))
+					.build());
+			}
+
+			if (socketProxy.isSet() && socketProxy.isHttp()) {
+				clientBuilder.setRoutePlanner(new DefaultProxyRoutePlanner(socketProxy.createHttpProxy()));
+			}
+
+			pooledEngine = new ClassicHttpEngine(clientBuilder.build());
+			ALL_CLIENTS.add(pooledEngine);
+
+			ALog.info("Shared Connection Pool: {}", pool);
+		}
+		return pooledEngine;
+	}
+
+	// NOTE: with HTTP/2, the requests of all the threads to a route are multiplexed as streams over one connection
+	private HttpVersionPolicy versionPolicy() {
+		switch (version) {
+			case Http2:
+				return HttpVersionPolicy.FORCE_HTTP_2;
+			case Negotiate:
+				return HttpVersionPolicy.NEGOTIATE;
+			default:
+				return HttpVersionPolicy.FORCE_HTTP_1;
+		}
+	}
+
+	private static Registry<ConnectionSocketFactory> createRegistry(SocketProxy socketProxy) {
+		return RegistryBuilder
+			.<ConnectionSocketFactory>create()
+			.register("http", new ProxiedConnectionSocketFactory(socketProxy))
+			.register("https", new ProxiedSslConnectionSocketFactory(socketProxy))
+			.build();
+	}
+
+	private static TimeValue timeValue(String duration, TimeValue def) {
+		return duration != null ? TimeValue.ofMilliseconds(Util.parseDuration(duration)) : def;
+	}
+
+	private static SSLContext createSslContext() {
+		try {
+			final TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
+			return SSLContexts.custom().loadTrustMaterial(null, acceptingTrustStrategy).build();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// ------------------------------
+
 	static class SocketProxy {
 		private final String scheme;
 		private final String host;
@@ -178,7 +352,7 @@ public class HttpFactory {
 
 
 		public ProxiedSslConnectionSocketFactory(SocketProxy socketProxy) {
-			super(createSslSocketFactory(), NoopHostnameVerifier.INSTANCE);
+			super(createSslContext(), NoopHostnameVerifier.INSTANCE);
 			this.socketProxy = socketProxy;
 		}
 
@@ -191,14 +365,5 @@ public class HttpFactory {
 				return super.createSocket(context);
 			}
 		}
-
-		private static SSLContext createSslSocketFactory() {
-			try {
-				final TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
-				return SSLContexts.custom().loadTrustMaterial(null, acceptingTrustStrategy).build();
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			}
-		}
 	}
 }
@@ -0,0 +1,13 @@
+package org.devocative.artemis.http;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class HttpRawResponse {
+	private final int code;
+	private final String contentType;
+	private final ResponseBody body;
+	private final String protocol;
+}
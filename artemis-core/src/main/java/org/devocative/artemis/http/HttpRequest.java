@@ -6,8 +6,6 @@ import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.Cookie;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.cookie.BasicClientCookie;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ContentType;
@@ -18,15 +16,17 @@ import org.devocative.artemis.TestFailedException;
 import org.devocative.artemis.ctx.StatisticsContext;
 import org.devocative.artemis.log.ALog;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -35,22 +35,32 @@ public class HttpRequest {
 	private final String rqId;
 	private final String rqGlobalId;
 	private final HttpUriRequestBase request;
-	private final CloseableHttpClient httpClient;
+	private final IHttpEngine engine;
 
-	private final StringBuilder builder = new StringBuilder();
+	// NOTE: kept as is, and the log detail is only built if it is logged
+	private Map<String, CharSequence> headers = Collections.emptyMap();
+	private CharSequence body;
+	private List<FormField> formFields = Collections.emptyList();
+
+	private boolean discardBody = false;
+	private String checksumAlgorithm;
+
+	// NOTE: the state of the exchange, set on sending
+	private boolean detail;
+	private ResponseBody rsBody;
+	private HttpClientContext context;
+	private long start;
 
 	// ------------------------------
 
 	public void setHeaders(Map<String, CharSequence> headers) {
 		headers.forEach(request::addHeader);
-		if (!headers.isEmpty()) {
-			builder.append("\n").append("HEADERS = ").append(headers);
-		}
+		this.headers = headers;
 	}
 
 	public void setBody(CharSequence body) {
 		request.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON, "UTF-8", false));
-		builder.append("\n").append(body);
+		this.body = body;
 	}
 
 	public void setFormParams(List<FormField> fields) {
@@ -83,61 +93,122 @@ public class HttpRequest {
 			request.setEntity(new UrlEncodedFormEntity(pairs));
 		}
 
-		builder.append("\n").append("FORM = ").append(fields);
+		this.formFields = fields;
+	}
+
+	/**
+	 * @param discard           only count the bytes of the response body, without keeping it
+	 * @param checksumAlgorithm the digest algorithm (e.g. <code>SHA-256</code>) of the response body, or null
+	 */
+	public void setRsBody(boolean discard, String checksumAlgorithm) {
+		this.discardBody = discard;
+		this.checksumAlgorithm = checksumAlgorithm;
 	}
 
+	/**
+	 * In the perf mode (<code>ALog.isDetailEnabled()</code> is false), only a one-line summary of the request is
+	 * logged, and the full detail of the request and response is logged only on failure.
+	 */
 	public void send(Consumer<HttpResponse> responseConsumer) {
-		ALog.info("RQ: {} - {}{}", request.getMethod(), getUri(), builder.toString());
+		begin();
+
+		final HttpRawResponse rs;
+		try {
+			rs = engine.execute(request, context, rsBody);
+		} catch (IOException e) {
+			failed();
+			throw new TestFailedException(rqId, e);
+		} catch (RuntimeException e) {
+			failed();
+			throw e;
+		}
+		complete(rs, responseConsumer);
+	}
 
-		final HttpClientContext context = HttpClientContext.create();
+	/**
+	 * Same as <code>send()</code>, but the calling thread doesn't wait for the response, and the response is processed
+	 * by the <code>continuation</code>, which must bind the context of the current user.
+	 *
+	 * @return completed after the <code>responseConsumer</code>, or exceptionally (i.e. a CompletionException) with
+	 * the same exception <code>send()</code> throws
+	 */
+	public CompletableFuture<Void> sendAsync(Consumer<HttpResponse> responseConsumer, Executor continuation) {
+		begin();
+
+		return engine.executeAsync(request, context, rsBody)
+			.handleAsync((rs, error) -> {
+				if (error != null) {
+					final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+					failed();
+					if (cause instanceof IOException) {
+						throw new TestFailedException(rqId, cause);
+					}
+					throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+				}
+				complete(rs, responseConsumer);
+				return null;
+			}, continuation);
+	}
+
+	// ------------------------------
+
+	private void begin() {
+		detail = ALog.isDetailEnabled();
+		if (detail) {
+			ALog.info("RQ: {} - {}{}", request.getMethod(), getUri(), describeRq());
+		}
+
+		try {
+			rsBody = new ResponseBody(discardBody, checksumAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new TestFailedException(rqId, "Invalid Checksum Algorithm: %s", checksumAlgorithm);
+		}
+
+		context = HttpClientContext.create();
 		updateCookies(context);
-		final long start = System.currentTimeMillis();
+		start = System.nanoTime();
+	}
 
-		try (final CloseableHttpResponse rs = httpClient.execute(request, context)) {
-			final long duration = System.currentTimeMillis() - start;
+	private void failed() {
+		rsBody.release();
+		if (!detail) {
+			ALog.error("FAILED RQ: {} - {}{}", request.getMethod(), getUri(), describeRq());
+		}
+	}
+
+	private void complete(HttpRawResponse rs, Consumer<HttpResponse> responseConsumer) {
+		long duration = 0;
+		try {
+			final long durationNanos = System.nanoTime() - start;
+			duration = TimeUnit.NANOSECONDS.toMillis(durationNanos);
 			final int code = rs.getCode();
-			final String contentType = rs.getEntity().getContentType();
-			final String body = getBody(rs);
-
-			final String cookiesPart;
-			final Map<String, String> cookiesMap;
-			if (context.getCookieStore().getCookies().size() > 0) {
-				final String cookies = context.getCookieStore().getCookies()
-					.stream()
-					.map(cookie -> String.format("%s=%s", cookie.getName(), cookie.getValue()))
-					.collect(Collectors.joining(","));
-				cookiesPart = String.format("\n\tCookies: %s", cookies);
-
-				cookiesMap = context.getCookieStore().getCookies().stream()
+
+			final Map<String, String> cookiesMap = context.getCookieStore().getCookies().isEmpty() ?
+				Collections.emptyMap() :
+				context.getCookieStore().getCookies().stream()
 					.collect(Collectors.toMap(Cookie::getName, Cookie::getValue));
-			} else {
-				cookiesMap = Collections.emptyMap();
-				cookiesPart = "";
-			}
 			ContextHandler.get().setCookies(cookiesMap);
 
-			if (!body.isEmpty()) {
-				ALog.info("RS: {} ({}) - {} [{} ms]\n\tContentType: {}{}\n\t{}",
-					request.getMethod(), code, request.getRequestUri(),
-					duration, contentType, cookiesPart, body);
+			if (detail) {
+				ALog.info("{}", describeRs(rs, duration, context));
 			} else {
-				ALog.info("RS: {} ({}) - {} [{} ms]\n\t{} - (EMPTY BODY){}",
-					request.getMethod(), code, request.getRequestUri(),
-					duration, contentType != null && !contentType.trim().isEmpty() ? "ContentType: " + contentType : "(No ContentType)",
-					cookiesPart);
+				ALog.info("RQ: {} - {} ({}) [{} ms] [{} bytes]", rqGlobalId, request.getMethod(), code, duration, rsBody.getLength());
 			}
 
-			StatisticsContext.add(rqGlobalId, request.getMethod(), request.getRequestUri(), code, duration);
+			StatisticsContext.add(rqGlobalId, request.getMethod(), request.getRequestUri(), code, rs.getProtocol(), TimeUnit.NANOSECONDS.toMicros(durationNanos));
 
-			responseConsumer.accept(new HttpResponse(code, contentType, body, cookiesMap));
-
-		} catch (IOException e) {
-			throw new TestFailedException(rqId, e);
+			responseConsumer.accept(new HttpResponse(code, rs.getContentType(), rsBody, cookiesMap));
+		} catch (RuntimeException e) {
+			if (!detail) {
+				ALog.error("FAILED RQ: {} - {}{}", request.getMethod(), getUri(), describeRq());
+				ALog.error("{}", describeRs(rs, duration, context));
+			}
+			throw e;
+		} finally {
+			rsBody.release();
 		}
 	}
 
-	// ------------------------------
-
 	private String getUri() {
 		try {
 			return request.getUri().toString();
@@ -146,20 +217,47 @@ public class HttpRequest {
 		}
 	}
 
-	private String getBody(CloseableHttpResponse response) {
-		try {
-			return new BufferedReader(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8))
-				.lines()
-				.collect(Collectors.joining("\n"));
-		} catch (IOException e) {
-			//throw new TestFailedException(rqId, e.getMessage());
-			throw new RuntimeException(e);
+	private String describeRq() {
+		final StringBuilder builder = new StringBuilder();
+		if (!headers.isEmpty()) {
+			builder.append("\n").append("HEADERS = ").append(headers);
+		}
+		if (body != null) {
+			builder.append("\n").append(body);
+		}
+		if (!formFields.isEmpty()) {
+			builder.append("\n").append("FORM = ").append(formFields);
+		}
+		return builder.toString();
+	}
+
+	private String describeRs(HttpRawResponse rs, long duration, HttpClientContext context) {
+		final String contentType = rs.getContentType();
+		final ResponseBody rsBody = rs.getBody();
+
+		final String cookiesPart = context.getCookieStore().getCookies().isEmpty() ? "" :
+			String.format("\n\tCookies: %s", context.getCookieStore().getCookies()
+				.stream()
+				.map(cookie -> String.format("%s=%s", cookie.getName(), cookie.getValue()))
+				.collect(Collectors.joining(",")));
+
+		final String head = String.format("RS: %s (%s) - %s [%s ms]", request.getMethod(), rs.getCode(), request.getRequestUri(), duration);
+		if (rsBody.isDiscarded()) {
+			return String.format("%s\n\tContentType: %s%s\n\t(DISCARDED BODY: %s bytes%s)",
+				head, contentType, cookiesPart, rsBody.getLength(),
+				rsBody.getChecksum() != null ? ", " + checksumAlgorithm + ":" + rsBody.getChecksum() : "");
+		} else if (rsBody.getLength() > 0) {
+			return String.format("%s\n\tContentType: %s%s\n\t%s", head, contentType, cookiesPart, rsBody.getText());
 		}
+		return String.format("%s\n\t%s - (EMPTY BODY)%s",
+			head, contentType != null && !contentType.trim().isEmpty() ? "ContentType: " + contentType : "(No ContentType)",
+			cookiesPart);
 	}
 
 	private void updateCookies(HttpClientContext context) {
+		// NOTE: always a new store, otherwise the client's default store is shared by all users of a shared client
+		context.setCookieStore(new BasicCookieStore());
 		if (!ContextHandler.get().getCookies().isEmpty()) {
-			context.setCookieStore(new BasicCookieStore());
 			ContextHandler.get().getCookies()
 				.forEach((key, value) -> {
 					final BasicClientCookie cookie = new BasicClientCookie(key, value);
@@ -10,6 +10,13 @@ import java.util.Map;
 public class HttpResponse {
 	private final int code;
 	private final String contentType;
-	private final String body;
+	private final ResponseBody responseBody;
 	private final Map<String, String> cookies;
+
+	// ------------------------------
+
+	// The decoded body, empty for the discarded one
+	public String getBody() {
+		return responseBody.getText();
+	}
 }
@@ -0,0 +1,29 @@
+package org.devocative.artemis.http;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the built request and reads the whole response, so that the request flow in <code>HttpRequest</code> is the
+ * same for all the engines. The response body is read into the passed <code>body</code>.
+ */
+public interface IHttpEngine extends Closeable {
+	HttpRawResponse execute(HttpUriRequestBase request, HttpClientContext context, ResponseBody body) throws IOException;
+
+	/**
+	 * The future is completed when the response is read. A blocking engine completes it in the calling thread.
+	 */
+	default CompletableFuture<HttpRawResponse> executeAsync(HttpUriRequestBase request, HttpClientContext context, ResponseBody body) {
+		final CompletableFuture<HttpRawResponse> future = new CompletableFuture<>();
+		try {
+			future.complete(execute(request, context, body));
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+}
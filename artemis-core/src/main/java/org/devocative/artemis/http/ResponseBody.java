@@ -0,0 +1,218 @@
+package org.devocative.artemis.http;
+
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The response body as bytes, read into a buffer reused by the current thread, and decoded to a string only on
+ * demand. In the discard mode, the bytes are only counted, and hashed if a checksum algorithm is set. Since the
+ * buffer is reused by the next request of the thread, the body is only valid till <code>release()</code>. The
+ * buffers can be disabled (e.g. for many short-lived virtual threads), so each body is read into a new array.
+ */
+public class ResponseBody {
+	private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+	private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+	private static volatile boolean POOLED_BUFFERS = true;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final boolean discard;
+	private final MessageDigest digest;
+
+	private byte[] bytes;
+	private long length;
+	private Charset charset = StandardCharsets.UTF_8;
+	private String text;
+	private String checksum;
+	private boolean released = false;
+
+	// ------------------------------
+
+	public ResponseBody(boolean discard, String checksumAlgorithm) throws NoSuchAlgorithmException {
+		this.discard = discard;
+		this.digest = checksumAlgorithm != null ? MessageDigest.getInstance(checksumAlgorithm) : null;
+	}
+
+	// ------------------------------
+
+	public static void usePooledBuffers(boolean enabled) {
+		POOLED_BUFFERS = enabled;
+	}
+
+	// ------------------------------
+
+	public boolean isDiscarded() {
+		return discard;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return the hex of the digest, or null if no checksum algorithm is set
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * @return true for an empty or whitespace-only body, checked on the bytes without decoding
+	 */
+	public boolean isBlank() {
+		checkReleased();
+		if (discard) {
+			return length == 0;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if ((bytes[i] & 0xFF) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String getText() {
+		if (text == null) {
+			checkReleased();
+			text = discard || length == 0 ? "" : new String(bytes, 0, (int) length, charset);
+		}
+		return text;
+	}
+
+	/**
+	 * @return a copy of the bytes, which stays valid after <code>release()</code>
+	 */
+	public byte[] copyBytes() {
+		checkReleased();
+		return discard || length == 0 ? new byte[0] : Arrays.copyOf(bytes, (int) length);
+	}
+
+	public void release() {
+		bytes = null;
+		released = true;
+	}
+
+	@Override
+	public String toString() {
+		return getText();
+	}
+
+	// ------------------------------
+
+	void read(InputStream in, long contentLength, String contentType) throws IOException {
+		charset = charsetOf(contentType);
+
+		if (in == null) {
+			finish();
+			return;
+		}
+
+		final boolean pooled = POOLED_BUFFERS;
+		byte[] buf = pooled ? BUFFER.get() : new byte[INITIAL_BUFFER_SIZE];
+		if (discard) {
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				length += n;
+				if (digest != null) {
+					digest.update(buf, 0, n);
+				}
+			}
+		} else {
+			if (contentLength > buf.length && contentLength <= Integer.MAX_VALUE) {
+				buf = new byte[(int) contentLength];
+			}
+
+			int len = 0;
+			while (true) {
+				if (len == buf.length) {
+					// NOTE: grow only if more data actually arrives, so a presized buffer is never reallocated
+					final int b = in.read();
+					if (b == -1) {
+						break;
+					}
+					buf = Arrays.copyOf(buf, buf.length * 2);
+					buf[len++] = (byte) b;
+				}
+
+				final int n = in.read(buf, len, buf.length - len);
+				if (n == -1) {
+					break;
+				}
+				len += n;
+			}
+
+			if (pooled && buf.length <= MAX_POOLED_BUFFER_SIZE) {
+				BUFFER.set(buf);
+			}
+			bytes = buf;
+			length = len;
+			if (digest != null) {
+				digest.update(buf, 0, len);
+			}
+		}
+
+		finish();
+	}
+
+	// NOTE: the whole body is already in memory (async engine), so it is used as is without copy
+	void wrap(byte[] body, String contentType) {
+		charset = charsetOf(contentType);
+
+		if (body != null) {
+			length = body.length;
+			if (!discard) {
+				bytes = body;
+			}
+			if (digest != null) {
+				digest.update(body);
+			}
+		}
+
+		finish();
+	}
+
+	// ------------------------------
+
+	private void finish() {
+		if (digest != null) {
+			final byte[] hash = digest.digest();
+			final char[] hex = new char[hash.length * 2];
+			for (int i = 0; i < hash.length; i++) {
+				hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+				hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+			}
+			checksum = new String(hex);
+		}
+	}
+
+	private void checkReleased() {
+		if (released) {
+			throw new IllegalStateException("Response body is released");
+		}
+	}
+
+	private static Charset charsetOf(String contentType) {
+		if (contentType != null) {
+			final ContentType type = ContentType.parseLenient(contentType);
+			if (type != null && type.getCharset() != null) {
+				return type.getCharset();
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+}
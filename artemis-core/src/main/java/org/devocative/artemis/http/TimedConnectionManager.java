@@ -0,0 +1,66 @@
+package org.devocative.artemis.http;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.devocative.artemis.ctx.StatisticsContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The shared connection manager, which reports the time waited for a connection (lease request till the connection
+ * is available) and the time it was leased (till its release) to the statistics
+ */
+class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+	private final Map<ConnectionEndpoint, Long> leased = new ConcurrentHashMap<>();
+
+	// ------------------------------
+
+	public TimedConnectionManager(Registry<ConnectionSocketFactory> registry, TimeValue timeToLive) {
+		super(registry, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, timeToLive);
+	}
+
+	// ------------------------------
+
+	@Override
+	public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+		final long start = System.nanoTime();
+		final LeaseRequest request = super.lease(id, route, requestTimeout, state);
+
+		return new LeaseRequest() {
+			@Override
+			public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+				final ConnectionEndpoint endpoint = request.get(timeout);
+				final long now = System.nanoTime();
+				StatisticsContext.poolLeased(TimeUnit.NANOSECONDS.toMicros(now - start));
+				leased.put(endpoint, now);
+				return endpoint;
+			}
+
+			@Override
+			public boolean cancel() {
+				return request.cancel();
+			}
+		};
+	}
+
+	@Override
+	public void release(ConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+		final Long start = leased.remove(endpoint);
+		if (start != null) {
+			StatisticsContext.poolReleased(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		}
+		super.release(endpoint, state, keepAlive);
+	}
+}
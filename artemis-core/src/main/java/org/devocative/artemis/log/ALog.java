@@ -7,6 +7,7 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.sift.SiftingAppender;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.OutputStreamAppender;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
 import ch.qos.logback.core.sift.AbstractDiscriminator;
@@ -18,12 +19,17 @@ import java.nio.charset.StandardCharsets;
 
 public class ALog {
 	private static final String PATTERN = "%date %-5level - %msg%n";
+	private static final int MAX_OPEN_LOG_FILES = 1000;
 	private static final LoggerContext LOGGER_CONTEXT = new LoggerContext();
 
 	private static Logger fileLog = null;
 	private static Logger consoleLog = null;
 	private static String name;
 
+	private static SiftingAppender siftingAppender = null;
+	private static volatile BatchingAppender batchingAppender = null;
+	private static volatile boolean perfMode = false;
+
 	// ------------------------------
 
 	static {
@@ -37,19 +43,86 @@ public class ALog {
 	// ------------------------------
 
 	public synchronized static void init(String name, boolean enableConsole) {
+		init(name, enableConsole, 0, false);
+	}
+
+	/**
+	 * @param asyncQueueSize greater than zero, the file logs are written asynchronously by a writer thread via a queue
+	 *                       of this size, otherwise they are written by the calling thread
+	 * @param dropOnFull     in async mode, the info events are dropped on a full queue, otherwise the caller waits
+	 */
+	public synchronized static void init(String name, boolean enableConsole, int asyncQueueSize, boolean dropOnFull) {
 		ALog.name = name;
 		Thread.currentThread().setName(name);
 
-		if (fileLog != null) {
-			return;
+		if (fileLog == null) {
+			create(enableConsole);
+		}
+
+		flush();
+		if (batchingAppender != null) {
+			fileLog.detachAppender(batchingAppender);
+			batchingAppender.stop();
+			batchingAppender = null;
+		}
+
+		final boolean async = asyncQueueSize > 0;
+		siftingAppender.getAppenderTracker().allComponents().stream()
+			.filter(appender -> appender instanceof OutputStreamAppender)
+			.forEach(appender -> ((OutputStreamAppender<ILoggingEvent>) appender).setImmediateFlush(!async));
+
+		if (async) {
+			batchingAppender = new BatchingAppender(siftingAppender, asyncQueueSize, dropOnFull);
+			batchingAppender.setContext(LOGGER_CONTEXT);
+			batchingAppender.setName("ArtemisAsync");
+			batchingAppender.start();
+
+			fileLog.detachAppender(siftingAppender);
+			fileLog.addAppender(batchingAppender);
+		} else if (fileLog.getAppender(siftingAppender.getName()) == null) {
+			fileLog.addAppender(siftingAppender);
+		}
+	}
+
+	/**
+	 * In perf mode, the detail logs (e.g. vars and request/response bodies) are skipped, and the callers may log a
+	 * summary instead
+	 */
+	public static void setPerfMode(boolean perfMode) {
+		ALog.perfMode = perfMode;
+	}
+
+	public static boolean isDetailEnabled() {
+		return !perfMode;
+	}
+
+	/**
+	 * In async mode, waits till all the logged events are written to the files
+	 */
+	public synchronized static void flush() {
+		if (batchingAppender != null) {
+			batchingAppender.flush();
 		}
+	}
+
+	/**
+	 * @return the number of events dropped on a full queue in async mode, since the last <code>init()</code>
+	 */
+	public static long getDroppedEvents() {
+		final BatchingAppender appender = batchingAppender;
+		return appender != null ? appender.getDropped() : 0;
+	}
 
+	// ---------------
+
+	private static void create(boolean enableConsole) {
 		LOGGER_CONTEXT.start();
 
 		final Discriminator<ILoggingEvent> discriminator = new AbstractDiscriminator<ILoggingEvent>() {
 			@Override
 			public String getDiscriminatingValue(ILoggingEvent iLoggingEvent) {
-				return Thread.currentThread().getName();
+				// NOTE: the event's thread, not the current one, since it may be the async writer
+				return iLoggingEvent.getThreadName();
 			}
 
 			@Override
@@ -63,6 +136,8 @@ public class ALog {
 		sa.setContext(LOGGER_CONTEXT);
 		sa.setName("Artemis");
 		sa.setDiscriminator(discriminator);
+		// NOTE: for thousands of users (threads), the least recently used files are closed and reopened on demand
+		sa.setMaxAppenderCount(MAX_OPEN_LOG_FILES);
 		sa.setAppenderFactory((context, discriminatingValue) -> {
 			final PatternLayoutEncoder ple = new CustomLayoutEncoder(false);
 			ple.setContext(context);
@@ -75,6 +150,8 @@ public class ALog {
 			appender.setName(discriminatingValue);
 			appender.setFile("logs/" + discriminatingValue + ".log");
 			appender.setEncoder(ple);
+			// NOTE: in async mode, the writer flushes once per batch
+			appender.setImmediateFlush(batchingAppender == null);
 
 			final SizeAndTimeBasedRollingPolicy<ILoggingEvent> policy = new SizeAndTimeBasedRollingPolicy<>();
 			policy.setContext(context);
@@ -94,7 +171,7 @@ public class ALog {
 		fileLog = LOGGER_CONTEXT.getLogger("FILE");
 		fileLog.setLevel(Level.INFO);
 		fileLog.setAdditive(false);
-		fileLog.addAppender(sa);
+		siftingAppender = sa;
 
 		if (enableConsole) {
 			final PatternLayoutEncoder ple = new CustomLayoutEncoder(true);
@@ -126,6 +203,12 @@ public class ALog {
 		}
 	}
 
+	public static void detail(String s, Object... params) {
+		if (!perfMode) {
+			info(s, params);
+		}
+	}
+
 	public static void warn(String s, Object... params) {
 		fileLog.warn(s, params);
 
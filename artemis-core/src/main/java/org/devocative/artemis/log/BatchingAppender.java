@@ -0,0 +1,147 @@
+package org.devocative.artemis.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.sift.SiftingAppenderBase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The workers only put the events in a bounded queue, and one writer thread drains them in batches to the sifting
+ * appender, and flushes each touched file once per batch. A single writer keeps the order of each file. On a full
+ * queue, the event is dropped or the worker waits, however warnings and errors always wait.
+ */
+class BatchingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+	private static final int MAX_BATCH_SIZE = 512;
+
+	private final SiftingAppenderBase<ILoggingEvent> target;
+	private final BlockingQueue<ILoggingEvent> queue;
+	private final boolean dropOnFull;
+
+	private final AtomicLong pending = new AtomicLong(0);
+	private final LongAdder dropped = new LongAdder();
+
+	private volatile boolean running = false;
+	private Thread writer;
+
+	// ------------------------------
+
+	BatchingAppender(SiftingAppenderBase<ILoggingEvent> target, int queueSize, boolean dropOnFull) {
+		this.target = target;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.dropOnFull = dropOnFull;
+	}
+
+	// ------------------------------
+
+	@Override
+	public void start() {
+		running = true;
+		writer = new Thread(this::write, "artemis-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		running = false;
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	// Waits till all the queued events are written and flushed
+	void flush() {
+		while (pending.get() > 0 && writer.isAlive()) {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	// ------------------------------
+
+	@Override
+	protected void append(ILoggingEvent event) {
+		// NOTE: the message is formatted and the thread name is captured by the worker, since the parameters may change
+		event.prepareForDeferredProcessing();
+
+		pending.incrementAndGet();
+		if (dropOnFull && event.getLevel().toInt() < Level.WARN_INT) {
+			if (!queue.offer(event)) {
+				pending.decrementAndGet();
+				dropped.increment();
+			}
+		} else {
+			try {
+				queue.put(event);
+			} catch (InterruptedException e) {
+				pending.decrementAndGet();
+				dropped.increment();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// ------------------------------
+
+	private void write() {
+		final List<ILoggingEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		final Set<String> files = new HashSet<>();
+
+		while (running || !queue.isEmpty()) {
+			try {
+				final ILoggingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+
+				batch.add(first);
+				queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+				for (ILoggingEvent event : batch) {
+					target.doAppend(event);
+					files.add(event.getThreadName());
+				}
+
+				for (String file : files) {
+					final Appender<ILoggingEvent> appender = target.getAppenderTracker().find(file);
+					if (appender instanceof OutputStreamAppender) {
+						((OutputStreamAppender<ILoggingEvent>) appender).getOutputStream().flush();
+					}
+				}
+			} catch (InterruptedException e) {
+				running = false;
+			} catch (IOException e) {
+				addError("Flushing log file", e);
+			} finally {
+				pending.addAndGet(-batch.size());
+				batch.clear();
+				files.clear();
+			}
+		}
+	}
+}
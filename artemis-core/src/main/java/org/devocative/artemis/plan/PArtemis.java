@@ -0,0 +1,13 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class PArtemis {
+	private final List<PParam> vars;
+	private final List<PScenario> scenarios;
+}
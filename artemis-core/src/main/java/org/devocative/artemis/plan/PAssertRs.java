@@ -0,0 +1,21 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.devocative.artemis.xml.ERsBodyType;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class PAssertRs {
+	public static final PAssertRs DEFAULT = new PAssertRs(null, ERsBodyType.json, null, null, null, false, null);
+
+	private final Integer status;
+	private final ERsBodyType body;
+	private final PList<String> properties;
+	private final PList<String> cookies;
+	private final PList<String[]> store;
+	private final boolean call;
+	private final PValue checksum;
+}
@@ -0,0 +1,33 @@
+package org.devocative.artemis.plan;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A comma-separated XML attribute, such as <code>properties</code> or <code>store</code>, which is split once for a
+ * literal value and on each call for a templated one.
+ */
+public class PList<T> {
+	private final PValue source;
+	private final Function<String, List<T>> parser;
+	private final List<T> literal;
+
+	// ------------------------------
+
+	PList(PValue source, Function<String, List<T>> parser) {
+		this.source = source;
+		this.parser = parser;
+		this.literal = source.isLiteral() ? parser.apply(source.eval()) : null;
+	}
+
+	// ------------------------------
+
+	public List<T> eval() {
+		return literal != null ? literal : parser.apply(source.eval());
+	}
+
+	@Override
+	public String toString() {
+		return source.toString();
+	}
+}
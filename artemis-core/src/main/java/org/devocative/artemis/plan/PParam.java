@@ -0,0 +1,12 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class PParam {
+	private final PValue name;
+	private final PValue value;
+	private final boolean file;
+}
@@ -0,0 +1,33 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.devocative.artemis.xml.EMethod;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class PRequest {
+	private final String id;
+	private final String globalId;
+	private final boolean withId;
+	private final boolean breakPoint;
+	private final EMethod method;
+	private final PValue url;
+	private final boolean call;
+	private final PWhen when;
+	private final List<PParam> vars;
+	private final List<PParam> headers;
+	private final PValue body;
+	private final List<PParam> urlParams;
+	private final List<PParam> form;
+	private final PAssertRs assertRs;
+
+	// ------------------------------
+
+	@Override
+	public String toString() {
+		return String.format("Rq(%s): %s - %s", id, method, url);
+	}
+}
@@ -0,0 +1,18 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class PScenario {
+	private final String id;
+	private final PValue parallel;
+	private final PValue loop;
+	private final PValue sleep;
+	private final boolean call;
+	private final List<PParam> vars;
+	private final List<PRequest> requests;
+}
@@ -0,0 +1,144 @@
+package org.devocative.artemis.plan;
+
+import groovy.lang.GroovyRuntimeException;
+import groovy.lang.MissingMethodException;
+import groovy.lang.MissingPropertyException;
+import groovy.text.Template;
+import org.devocative.artemis.ContextHandler;
+import org.devocative.artemis.FastTemplate;
+
+/**
+ * A value of an XML attribute or body in the execution plan. A literal value is kept as is, and a value
+ * containing <code>${...}</code> is compiled once and evaluated against the current context on each call, by
+ * <code>FastTemplate</code> for simple var references, and otherwise by the Groovy template engine.
+ */
+public abstract class PValue {
+
+	public static PValue of(String value, String attribute, Object owner) {
+		if (value == null) {
+			return null;
+		}
+
+		return value.contains("${") ?
+			new Templated(value, attribute, owner) :
+			new Literal(value);
+	}
+
+	// ------------------------------
+
+	public abstract String eval();
+
+	public abstract boolean isLiteral();
+
+	public int evalInt() {
+		return Integer.parseInt(eval());
+	}
+
+	public long evalLong() {
+		return Long.parseLong(eval());
+	}
+
+	// ------------------------------
+
+	private static class Literal extends PValue {
+		private final String value;
+		private final Long number;
+
+		private Literal(String value) {
+			this.value = value;
+
+			Long number;
+			try {
+				number = Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				number = null;
+			}
+			this.number = number;
+		}
+
+		@Override
+		public String eval() {
+			return value;
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return true;
+		}
+
+		@Override
+		public int evalInt() {
+			return number != null && number == number.intValue() ? number.intValue() : super.evalInt();
+		}
+
+		@Override
+		public long evalLong() {
+			return number != null ? number : super.evalLong();
+		}
+
+		@Override
+		public String toString() {
+			return value;
+		}
+	}
+
+	private static class Templated extends PValue {
+		private final String source;
+		private final String attribute;
+		private final String owner;
+		private final FastTemplate fastTemplate;
+		private volatile Template template;
+
+		private Templated(String source, String attribute, Object owner) {
+			this.source = source;
+			this.attribute = attribute;
+			this.owner = String.valueOf(owner);
+			this.fastTemplate = FastTemplate.parse(source);
+			this.template = fastTemplate == null ? ContextHandler.compileTxtTemplate(source) : null;
+		}
+
+		@Override
+		public String eval() {
+			if (fastTemplate != null) {
+				final String result = ContextHandler.evalTxtTemplate(fastTemplate);
+				if (result != null) {
+					return result;
+				}
+			}
+
+			// the Groovy template is compiled lazily for a fast template, only if it falls back
+			if (template == null) {
+				template = ContextHandler.compileTxtTemplate(source);
+			}
+
+			try {
+				return ContextHandler.evalTxtTemplate(template);
+			} catch (MissingPropertyException | MissingMethodException e) {
+				final String missing;
+				if (e instanceof MissingPropertyException) {
+					missing = ((MissingPropertyException) e).getProperty();
+				} else {
+					missing = ((MissingMethodException) e).getMethod() + "()";
+				}
+
+				throw new RuntimeException(
+					String.format("Invalid expression '%s' inside '%s' from '%s' attribute of '%s' (MSG = %s)",
+						missing, source, attribute, owner, e.getMessage()), e);
+			} catch (GroovyRuntimeException e) {
+				throw new RuntimeException(
+					String.format("Invalid groovy '%s' from '%s' attribute in '%s' (MSG = %s)",
+						source, attribute, owner, e.getMessage()), e);
+			}
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return source;
+		}
+	}
+}
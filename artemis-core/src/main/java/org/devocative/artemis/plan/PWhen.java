@@ -0,0 +1,11 @@
+package org.devocative.artemis.plan;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class PWhen {
+	private final PValue expression;
+	private final PValue message;
+}
@@ -0,0 +1,179 @@
+package org.devocative.artemis.plan;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.devocative.artemis.ContextHandler;
+import org.devocative.artemis.TestFailedException;
+import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.log.ALog;
+import org.devocative.artemis.xml.*;
+import org.devocative.artemis.xml.method.XBody;
+import org.devocative.artemis.xml.method.XWhen;
+import org.devocative.artemis.xml.param.XFormField;
+import org.devocative.artemis.xml.param.XUrlParam;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles the loaded <code>XArtemis</code> into an immutable execution plan, so that during the execution only
+ * the dynamic parts are evaluated.
+ */
+public class PlanCompiler {
+	private final Config config;
+
+	private int noOfWhens = 0;
+
+	// ------------------------------
+
+	public PlanCompiler(Config config) {
+		this.config = config;
+	}
+
+	// ------------------------------
+
+	public PArtemis compile(XArtemis artemis) {
+		// NOTE: the disabled and unselected scenarios are already skipped by XmlLoader
+		final List<PScenario> scenarios = nonNull(artemis.getScenarios()).stream()
+			.map(this::compile)
+			.collect(Collectors.toList());
+
+		if (config.getCompileOnLoad()) {
+			ALog.info("Compiled [{}] <when> expression(s)", noOfWhens);
+		}
+
+		return new PArtemis(vars(artemis.getVars()), Collections.unmodifiableList(scenarios));
+	}
+
+	// ------------------------------
+
+	private PScenario compile(XScenario scenario) {
+		final List<XBaseRequest> xRequests = nonNull(scenario.getRequests());
+		if (scenario.getRequests() != null) {
+			scenario.updateRequestsIds();
+		}
+
+		final List<PRequest> requests = xRequests.stream()
+			.map(this::compile)
+			.collect(Collectors.toList());
+
+		return new PScenario(
+			scenario.getId(),
+			PValue.of(scenario.getParallel(), "parallel", scenario),
+			PValue.of(scenario.getLoop(), "loop", scenario),
+			PValue.of(scenario.getSleep(), "sleep", scenario),
+			isTrue(scenario.getCall()),
+			vars(scenario.getVars()),
+			Collections.unmodifiableList(requests));
+	}
+
+	private PRequest compile(XBaseRequest rq) {
+		if (rq instanceof XBreakPoint) {
+			return new PRequest(rq.getId(), rq.getGlobalId(), false, true, null, null, false, null,
+				Collections.emptyList(), Collections.emptyList(), null, Collections.emptyList(),
+				Collections.emptyList(), null);
+		}
+
+		final XBody body = rq.getBody();
+
+		return new PRequest(
+			rq.getId(),
+			rq.getGlobalId(),
+			isTrue(rq.isWithId()),
+			false,
+			rq.getMethod(),
+			PValue.of(rq.getUrl(), "url", rq),
+			isTrue(rq.getCall()),
+			when(rq),
+			vars(rq.getVars()),
+			params(rq.getHeaders(), XHeader::getName, XHeader::getValue, x -> false),
+			body != null ? PValue.of(body.getContent().trim(), "content", body) : null,
+			params(rq.getUrlParams(), XUrlParam::getName, XUrlParam::getValue, x -> false),
+			params(rq.getForm(), XFormField::getName, XFormField::getValue, XFormField::isFile),
+			assertRs(rq));
+	}
+
+	private PWhen when(XBaseRequest rq) {
+		final XWhen when = rq.getWhen();
+		if (when == null) {
+			return null;
+		}
+
+		final PValue expression = PValue.of(when.getContent(), "content", when);
+
+		if (config.getCompileOnLoad() && expression.isLiteral()) {
+			try {
+				ContextHandler.compileExpr(expression.eval());
+				noOfWhens++;
+			} catch (CompilationFailedException e) {
+				throw new TestFailedException(rq.getGlobalId(), "Invalid <when> Expression: %s", e.getMessage());
+			}
+		}
+
+		return new PWhen(expression, PValue.of(when.getMessage(), "message", when));
+	}
+
+	private PAssertRs assertRs(XBaseRequest rq) {
+		final XAssertRs assertRs = rq.getAssertRs();
+		if (assertRs == null) {
+			return null;
+		}
+
+		final ERsBodyType body = assertRs.getBody() != null ? assertRs.getBody() : ERsBodyType.json;
+		if (assertRs.getProperties() != null && body != ERsBodyType.json) {
+			throw new TestFailedException(rq.getId(), "Invalid <assertRs/> Definition: properties defined for non-json body");
+		}
+		if (assertRs.getChecksum() != null && !assertRs.getChecksum().contains(":")) {
+			throw new TestFailedException(rq.getId(), "Invalid <assertRs/> Definition: checksum must be 'ALGORITHM:HEX'");
+		}
+
+		return new PAssertRs(
+			assertRs.getStatus(),
+			body,
+			list(assertRs.getProperties(), "properties", assertRs, String::trim),
+			list(assertRs.getCookies(), "cookies", assertRs, String::trim),
+			list(assertRs.getStore(), "store", assertRs, prop -> prop.trim().split("[.]")),
+			isTrue(assertRs.getCall()),
+			PValue.of(assertRs.getChecksum(), "checksum", assertRs));
+	}
+
+	private List<PParam> vars(List<XVar> vars) {
+		return params(vars, XVar::getName, XVar::getValue, x -> false);
+	}
+
+	private <T> List<PParam> params(List<T> list, Function<T, String> name, Function<T, String> value, Function<T, Boolean> file) {
+		final List<PParam> result = new ArrayList<>();
+		for (T item : nonNull(list)) {
+			if (item != null) {
+				result.add(new PParam(
+					PValue.of(name.apply(item), "name", item),
+					PValue.of(value.apply(item), "value", item),
+					file.apply(item)));
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private <T> PList<T> list(String value, String attribute, Object owner, Function<String, T> parser) {
+		final PValue source = PValue.of(value, attribute, owner);
+		return source != null ?
+			new PList<>(source, str -> Collections.unmodifiableList(
+				Stream.of(str.split(","))
+					.map(parser)
+					.collect(Collectors.toList()))) :
+			null;
+	}
+
+	// ------------------------------
+
+	private static <T> List<T> nonNull(List<T> list) {
+		return list != null ? list : Collections.emptyList();
+	}
+
+	private static boolean isTrue(Boolean b) {
+		return b != null && b;
+	}
+}
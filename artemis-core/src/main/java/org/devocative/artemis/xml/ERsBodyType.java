@@ -1,5 +1,5 @@
 package org.devocative.artemis.xml;
 
 public enum ERsBodyType {
-	json, text, empty
+	json, text, empty, discard
 }
@@ -5,12 +5,15 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
 import java.util.List;
 
 @Getter
 @Setter
 @XStreamAlias("artemis")
-public class XArtemis {
+public class XArtemis implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private List<XVar> vars;
 
 	@XStreamImplicit
@@ -5,10 +5,14 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @XStreamAlias("assertRs")
-public class XAssertRs {
+public class XAssertRs implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private Integer status;
 
@@ -26,4 +30,7 @@ public class XAssertRs {
 
 	@XStreamAsAttribute
 	private Boolean call;
+
+	@XStreamAsAttribute
+	private String checksum;
 }
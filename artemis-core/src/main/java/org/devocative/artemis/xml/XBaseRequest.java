@@ -10,11 +10,14 @@ import org.devocative.artemis.xml.method.XWhen;
 import org.devocative.artemis.xml.param.XFormField;
 import org.devocative.artemis.xml.param.XUrlParam;
 
+import java.io.Serializable;
 import java.util.List;
 
 @Getter
 @Setter
-public abstract class XBaseRequest {
+public abstract class XBaseRequest implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	public static final String BREAK_POINT_ID = "_BREAK_POINT_";
 
 	@XStreamAsAttribute
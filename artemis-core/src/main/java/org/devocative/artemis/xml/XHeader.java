@@ -7,11 +7,15 @@ import com.thoughtworks.xstream.converters.extended.ToAttributedValueConverter;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @XStreamAlias("header")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "valueAsBody")
-public class XHeader implements INameTheValue {
+public class XHeader implements INameTheValue, Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private String name;
 
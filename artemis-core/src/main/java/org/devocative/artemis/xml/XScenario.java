@@ -6,12 +6,15 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
 import java.util.List;
 
 @Getter
 @Setter
 @XStreamAlias("scenario")
-public class XScenario {
+public class XScenario implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private String id;
 
@@ -7,11 +7,15 @@ import com.thoughtworks.xstream.converters.extended.ToAttributedValueConverter;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @XStreamAlias("var")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "valueAsBody")
-public class XVar implements INameTheValue {
+public class XVar implements INameTheValue, Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private String name;
 
@@ -0,0 +1,310 @@
+package org.devocative.artemis.xml;
+
+import org.devocative.artemis.xml.method.*;
+import org.devocative.artemis.xml.param.XFormField;
+import org.devocative.artemis.xml.param.XUrlParam;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Loads the XML file into <code>XArtemis</code> by a StAX reader, with the same mapping as the XStream annotations
+ * of the model. A scenario rejected by the filter (e.g. disabled or not selected) is skipped right after reading its
+ * attributes, so its requests are never built.
+ */
+public class XmlLoader {
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+	static {
+		// NOTE: the DOCTYPE is ignored, and no external DTD is fetched
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+	}
+
+	private final Predicate<XScenario> filter;
+
+	private int loaded = 0;
+	private int skipped = 0;
+
+	// ------------------------------
+
+	public XmlLoader(Predicate<XScenario> filter) {
+		this.filter = filter;
+	}
+
+	// ------------------------------
+
+	public XArtemis load(InputStream in) {
+		XMLStreamReader reader = null;
+		try {
+			reader = FACTORY.createXMLStreamReader(in);
+			// NOTE: nextTag() fails on the DOCTYPE of the prolog
+			int event = reader.next();
+			while (event != START_ELEMENT) {
+				event = reader.next();
+			}
+			if (!"artemis".equals(reader.getLocalName())) {
+				throw new RuntimeException("Invalid XML: root must be <artemis>, got <" + reader.getLocalName() + ">");
+			}
+			return artemis(reader);
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Invalid XML: " + e.getMessage(), e);
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeException(String.format("Invalid XML: %s (line %s)",
+				e.getMessage(), reader != null ? reader.getLocation().getLineNumber() : -1), e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// ignored
+				}
+			}
+		}
+	}
+
+	public int getLoaded() {
+		return loaded;
+	}
+
+	public int getSkipped() {
+		return skipped;
+	}
+
+	// ------------------------------
+
+	private XArtemis artemis(XMLStreamReader reader) throws XMLStreamException {
+		final XArtemis artemis = new XArtemis();
+
+		while (reader.nextTag() == START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "vars":
+					artemis.setVars(list(reader, "var", this::var));
+					break;
+				case "scenario":
+					final XScenario scenario = scenario(reader);
+					if (scenario != null) {
+						if (artemis.getScenarios() == null) {
+							artemis.setScenarios(new ArrayList<>());
+						}
+						artemis.getScenarios().add(scenario);
+					}
+					break;
+				default:
+					throw unknown(reader, "artemis");
+			}
+		}
+
+		return artemis;
+	}
+
+	private XScenario scenario(XMLStreamReader reader) throws XMLStreamException {
+		final XScenario scenario = new XScenario();
+		scenario.setId(attr(reader, "id"));
+		scenario.setEnabled(bool(attr(reader, "enabled")));
+		scenario.setParallel(attr(reader, "parallel"));
+		scenario.setLoop(attr(reader, "loop"));
+		scenario.setSleep(attr(reader, "sleep"));
+		scenario.setCall(bool(attr(reader, "call")));
+
+		if (!filter.test(scenario)) {
+			skip(reader);
+			skipped++;
+			return null;
+		}
+
+		while (reader.nextTag() == START_ELEMENT) {
+			final String tag = reader.getLocalName();
+			if ("vars".equals(tag)) {
+				scenario.setVars(list(reader, "var", this::var));
+			} else {
+				final XBaseRequest rq = request(reader, tag);
+				if (scenario.getRequests() == null) {
+					scenario.setRequests(new ArrayList<>());
+				}
+				scenario.getRequests().add(rq);
+			}
+		}
+
+		loaded++;
+		return scenario;
+	}
+
+	private XBaseRequest request(XMLStreamReader reader, String tag) throws XMLStreamException {
+		final XBaseRequest rq;
+		switch (tag) {
+			case "get":
+				rq = new XGet();
+				break;
+			case "post":
+				rq = new XPost();
+				break;
+			case "put":
+				rq = new XPut();
+				break;
+			case "patch":
+				rq = new XPatch();
+				break;
+			case "delete":
+				rq = new XDelete();
+				break;
+			case "break-point":
+				skip(reader);
+				return new XBreakPoint();
+			default:
+				throw unknown(reader, "scenario");
+		}
+
+		rq.setId(attr(reader, "id"));
+		rq.setUrl(attr(reader, "url"));
+		rq.setCall(bool(attr(reader, "call")));
+
+		while (reader.nextTag() == START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "when":
+					final XWhen when = new XWhen();
+					when.setMessage(attr(reader, "message"));
+					when.setContent(reader.getElementText());
+					rq.setWhen(when);
+					break;
+				case "vars":
+					rq.setVars(list(reader, "var", this::var));
+					break;
+				case "headers":
+					rq.setHeaders(list(reader, "header", this::header));
+					break;
+				case "body":
+					final XBody body = new XBody();
+					final String type = attr(reader, "type");
+					if (type != null) {
+						body.setType(ERqBodyType.valueOf(type));
+					}
+					body.setContent(reader.getElementText());
+					rq.setBody(body);
+					break;
+				case "urlParams":
+					rq.setUrlParams(list(reader, "param", this::urlParam));
+					break;
+				case "form":
+					rq.setForm(list(reader, "field", this::formField));
+					break;
+				case "assertRs":
+					rq.setAssertRs(assertRs(reader));
+					break;
+				default:
+					throw unknown(reader, tag);
+			}
+		}
+
+		return rq;
+	}
+
+	private XAssertRs assertRs(XMLStreamReader reader) throws XMLStreamException {
+		final XAssertRs assertRs = new XAssertRs();
+		final String status = attr(reader, "status");
+		if (status != null) {
+			assertRs.setStatus(Integer.valueOf(status.trim()));
+		}
+		final String body = attr(reader, "body");
+		if (body != null) {
+			assertRs.setBody(ERsBodyType.valueOf(body));
+		}
+		assertRs.setProperties(attr(reader, "properties"));
+		assertRs.setCookies(attr(reader, "cookies"));
+		assertRs.setStore(attr(reader, "store"));
+		assertRs.setCall(bool(attr(reader, "call")));
+		assertRs.setChecksum(attr(reader, "checksum"));
+		skip(reader);
+		return assertRs;
+	}
+
+	// ---------------
+
+	private XVar var(XMLStreamReader reader) throws XMLStreamException {
+		final XVar var = new XVar();
+		var.setName(attr(reader, "name"));
+		var.setValueAsAttr(attr(reader, "value"));
+		var.setValueAsBody(reader.getElementText());
+		return var;
+	}
+
+	private XHeader header(XMLStreamReader reader) throws XMLStreamException {
+		final XHeader header = new XHeader();
+		header.setName(attr(reader, "name"));
+		header.setValueAsAttr(attr(reader, "value"));
+		header.setValueAsBody(reader.getElementText());
+		return header;
+	}
+
+	private XUrlParam urlParam(XMLStreamReader reader) throws XMLStreamException {
+		final XUrlParam param = new XUrlParam();
+		param.setName(attr(reader, "name"));
+		param.setValueAsAttr(attr(reader, "value"));
+		param.setValueAsBody(reader.getElementText());
+		return param;
+	}
+
+	private XFormField formField(XMLStreamReader reader) throws XMLStreamException {
+		final XFormField field = new XFormField();
+		field.setName(attr(reader, "name"));
+		field.setValueAsAttr(attr(reader, "value"));
+		field.setFile(Boolean.parseBoolean(attr(reader, "file")));
+		field.setValueAsBody(reader.getElementText());
+		return field;
+	}
+
+	// ------------------------------
+
+	private static <T> List<T> list(XMLStreamReader reader, String itemTag, IItemReader<T> item) throws XMLStreamException {
+		final String tag = reader.getLocalName();
+		final List<T> list = new ArrayList<>();
+		while (reader.nextTag() == START_ELEMENT) {
+			if (!itemTag.equals(reader.getLocalName())) {
+				throw unknown(reader, tag);
+			}
+			list.add(item.read(reader));
+		}
+		return list;
+	}
+
+	private static void skip(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			final int event = reader.next();
+			if (event == START_ELEMENT) {
+				depth++;
+			} else if (event == END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private static String attr(XMLStreamReader reader, String name) {
+		return reader.getAttributeValue(null, name);
+	}
+
+	private static Boolean bool(String value) {
+		return value != null ? Boolean.valueOf(value.trim()) : null;
+	}
+
+	private static RuntimeException unknown(XMLStreamReader reader, String parent) {
+		return new RuntimeException(String.format("Invalid XML: unknown <%s> in <%s> (line %s)",
+			reader.getLocalName(), parent, reader.getLocation().getLineNumber()));
+	}
+
+	// ------------------------------
+
+	@FunctionalInterface
+	private interface IItemReader<T> {
+		T read(XMLStreamReader reader) throws XMLStreamException;
+	}
+}
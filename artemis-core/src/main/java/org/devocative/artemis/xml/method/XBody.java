@@ -8,11 +8,15 @@ import lombok.Getter;
 import lombok.Setter;
 import org.devocative.artemis.xml.ERqBodyType;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @XStreamAlias("body")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "content")
-public class XBody {
+public class XBody implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private ERqBodyType type = ERqBodyType.json;
 
@@ -6,6 +6,8 @@ import org.devocative.artemis.xml.XBaseRequest;
 
 @XStreamAlias("patch")
 public class XPatch extends XBaseRequest {
+	private static final long serialVersionUID = 1L;
+
 	@Override
 	public EMethod getMethod() {
 		return EMethod.PATCH;
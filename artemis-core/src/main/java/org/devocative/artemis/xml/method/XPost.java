@@ -10,6 +10,8 @@ import org.devocative.artemis.xml.XBaseRequest;
 @Setter
 @XStreamAlias("post")
 public class XPost extends XBaseRequest {
+	private static final long serialVersionUID = 1L;
+
 	@Override
 	public EMethod getMethod() {
 		return EMethod.POST;
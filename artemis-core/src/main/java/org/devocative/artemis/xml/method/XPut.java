@@ -6,6 +6,8 @@ import org.devocative.artemis.xml.XBaseRequest;
 
 @XStreamAlias("put")
 public class XPut extends XBaseRequest {
+	private static final long serialVersionUID = 1L;
+
 	@Override
 	public EMethod getMethod() {
 		return EMethod.PUT;
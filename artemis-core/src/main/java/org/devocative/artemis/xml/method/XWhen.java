@@ -7,11 +7,15 @@ import com.thoughtworks.xstream.converters.extended.ToAttributedValueConverter;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @XStreamAlias("when")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "content")
-public class XWhen {
+public class XWhen implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private String content;
 
 	@XStreamAsAttribute
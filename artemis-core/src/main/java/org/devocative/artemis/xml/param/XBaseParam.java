@@ -6,9 +6,13 @@ import lombok.Getter;
 import lombok.Setter;
 import org.devocative.artemis.xml.INameTheValue;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
-public abstract class XBaseParam implements INameTheValue {
+public abstract class XBaseParam implements INameTheValue, Serializable {
+	private static final long serialVersionUID = 1L;
+
 	@XStreamAsAttribute
 	private String name;
 
@@ -11,6 +11,8 @@ import lombok.Setter;
 @XStreamAlias("field")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "valueAsBody")
 public class XFormField extends XBaseParam {
+	private static final long serialVersionUID = 1L;
+
 	private String valueAsBody;
 	private boolean file = false;
 
@@ -11,5 +11,7 @@ import lombok.Setter;
 @XStreamAlias("param")
 @XStreamConverter(value = ToAttributedValueConverter.class, strings = "valueAsBody")
 public class XUrlParam extends XBaseParam {
+	private static final long serialVersionUID = 1L;
+
 	private String valueAsBody;
 }
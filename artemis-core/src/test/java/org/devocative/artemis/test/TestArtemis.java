@@ -1,18 +1,40 @@
 package org.devocative.artemis.test;
 
+import com.thoughtworks.xstream.XStream;
 import groovy.lang.Artemis;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
 import groovy.lang.HttpBuilder;
 import groovy.lang.KeyPairUnit;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.devocative.artemis.CompiledCache;
+import org.devocative.artemis.Context;
+import org.devocative.artemis.Continuation;
 import org.devocative.artemis.ContextHandler;
+import org.devocative.artemis.FastTemplate;
+import org.devocative.artemis.Immutable;
+import org.devocative.artemis.SuiteCache;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.log.ALog;
+import org.devocative.artemis.xml.*;
+import org.devocative.artemis.xml.method.*;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static groovy.lang.Artemis.http;
 import static org.junit.jupiter.api.Assertions.*;
@@ -130,8 +152,314 @@ public class TestArtemis {
 		}
 	}
 
+	@Test
+	public void test_fastTemplate() {
+		final Map<String, Object> user = new HashMap<>();
+		user.put("name", "Foo");
+		user.put("address", Collections.singletonMap("city", "Bar"));
+
+		final Config config = new Config()
+			.addVar("cell", "09121234567")
+			.addVar("user", user);
+		config.init();
+		ALog.init(config.getName(), true);
+		ContextHandler.init(config);
+		ContextHandler.createContext();
+
+		for (String source : Arrays.asList("${cell}", "cell=${ cell },\r\ncity=${user.address.city}\r", "${user.address}", "${user.age}")) {
+			final FastTemplate template = FastTemplate.parse(source);
+			assertNotNull(template, source);
+			assertEquals(ContextHandler.evalTxtTemplate(source), template.eval(ContextHandler.get().getVars()), source);
+		}
+
+		assertNull(FastTemplate.parse("${_.generate(9, '0'..'9')}"));
+		assertNull(FastTemplate.parse("$cell"));
+		assertNull(FastTemplate.parse("<%= cell %>"));
+		assertNull(FastTemplate.parse("${cell}\\n"));
+
+		// unresolved on maps, so falls back to Groovy
+		assertNull(FastTemplate.parse("${unknown}").eval(ContextHandler.get().getVars()));
+		assertNull(FastTemplate.parse("${cell.size}").eval(ContextHandler.get().getVars()));
+	}
+
+	@Test
+	public void test_context_oldMemory() throws Exception {
+		final Config config = new Config();
+		config.init();
+		ContextHandler.init(config);
+
+		// the context of a memory file written before the vars were layered, with all of them in the flat 'vars'
+		final Context ctx = ContextHandler.fromJson("{" +
+			"\"globalVars\": {\"g\": 1}, " +
+			"\"scenarioVars\": {\"s\": 2}, " +
+			"\"vars\": {\"g\": 1, \"s\": 2, \"r\": 3}, " +
+			"\"cookies\": {}}", Context.class);
+
+		final Map<String, Object> vars = ctx.getVars();
+		assertEquals(1, vars.get("g"));
+		assertEquals(2, vars.get("s"));
+		assertEquals(3, vars.get("r"));
+		assertEquals(3, vars.size());
+	}
+
+	@Test
+	public void test_continuation() throws Exception {
+		final Continuation cont = new Continuation("chain");
+		final AtomicReference<Context> expected = new AtomicReference<>();
+		final AtomicInteger stale = new AtomicInteger(0);
+		final int steps = 20_000;
+
+		// each step binds a new context and completes at once, so its next step is started before it is finished, and
+		// the next step must see the new context
+		cont.start(() -> cont.loop(steps, idx -> {
+			if (ContextHandler.get() != expected.get()) {
+				stale.incrementAndGet();
+			}
+			final Context ctx = new Context();
+			ContextHandler.bind(ctx);
+			expected.set(ctx);
+			return idx % 2 == 0 ? CompletableFuture.completedFuture(null) : cont.delay(0);
+		})).get(1, TimeUnit.MINUTES);
+
+		assertEquals(0, stale.get());
+		assertEquals("chain", cont.getName());
+	}
+
+	@Test
+	public void test_compiledCache() {
+		final CompiledCache<String> cache = new CompiledCache<>("Test Cache", 1);
+		final AtomicInteger compiled = new AtomicInteger(0);
+		final Function<String, String> compiler = src -> {
+			compiled.incrementAndGet();
+			return src.toUpperCase();
+		};
+
+		// on exceeding the size, the other entry is evicted, and the just compiled one is kept
+		assertEquals("B", cache.get("b", compiler));
+		assertEquals("A", cache.get("a", compiler));
+		assertEquals("A", cache.get("a", compiler));
+
+		assertEquals(2, compiled.get());
+		assertEquals(1, cache.getSize());
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void test_xmlLoader() {
+		final XStream xStream = new XStream();
+		xStream.processAnnotations(new Class[]{XArtemis.class, XGet.class, XPost.class, XPut.class, XPatch.class, XDelete.class, XBreakPoint.class});
+		xStream.allowTypesByWildcard(new String[]{"org.devocative.artemis.xml.**"});
+		final XArtemis expected = (XArtemis) xStream.fromXML(TestArtemis.class.getResourceAsStream("/artemis.xml"));
+
+		final XmlLoader loader = new XmlLoader(scenario -> !"Login".equals(scenario.getId()));
+		final XArtemis actual = loader.load(TestArtemis.class.getResourceAsStream("/artemis.xml"));
+
+		assertEquals(1, loader.getLoaded());
+		assertEquals(1, loader.getSkipped());
+		assertEquals(describe(expected.getVars()), describe(actual.getVars()));
+
+		final XScenario expectedScenario = expected.getScenarios().get(0);
+		final XScenario actualScenario = actual.getScenarios().get(0);
+		assertEquals("Login", expected.getScenarios().get(1).getId());
+		assertEquals(1, actual.getScenarios().size());
+		assertEquals(expectedScenario.getId(), actualScenario.getId());
+		assertEquals(expectedScenario.getSleep(), actualScenario.getSleep());
+		assertEquals(describe(expectedScenario.getVars()), describe(actualScenario.getVars()));
+		assertEquals(expectedScenario.getRequests().size(), actualScenario.getRequests().size());
+
+		for (int i = 0; i < expectedScenario.getRequests().size(); i++) {
+			final XBaseRequest expectedRq = expectedScenario.getRequests().get(i);
+			final XBaseRequest actualRq = actualScenario.getRequests().get(i);
+
+			assertEquals(expectedRq.getClass(), actualRq.getClass());
+			assertEquals(expectedRq.toString(), actualRq.toString());
+			assertEquals(expectedRq.getCall(), actualRq.getCall());
+			assertEquals(describe(expectedRq.getVars()), describe(actualRq.getVars()));
+			assertEquals(describe(expectedRq.getHeaders()), describe(actualRq.getHeaders()));
+			assertEquals(describe(expectedRq.getUrlParams()), describe(actualRq.getUrlParams()));
+			assertEquals(describe(expectedRq.getForm()), describe(actualRq.getForm()));
+			if (expectedRq.getBody() != null) {
+				// NOTE: XStream doesn't call the constructor, so the default type is null instead of json
+				assertEquals(expectedRq.getBody().getType() != null ? expectedRq.getBody().getType() : ERqBodyType.json,
+					actualRq.getBody().getType());
+				assertEquals(expectedRq.getBody().getContent(), actualRq.getBody().getContent());
+			}
+			if (expectedRq.getWhen() != null) {
+				assertEquals(expectedRq.getWhen().getContent(), actualRq.getWhen().getContent());
+				assertEquals(expectedRq.getWhen().getMessage(), actualRq.getWhen().getMessage());
+			}
+			if (expectedRq.getAssertRs() != null) {
+				final XAssertRs expectedRs = expectedRq.getAssertRs();
+				final XAssertRs actualRs = actualRq.getAssertRs();
+				assertEquals(
+					Arrays.asList(expectedRs.getStatus(), expectedRs.getBody(), expectedRs.getProperties(), expectedRs.getCookies(),
+						expectedRs.getStore(), expectedRs.getCall(), expectedRs.getChecksum()),
+					Arrays.asList(actualRs.getStatus(), actualRs.getBody(), actualRs.getProperties(), actualRs.getCookies(),
+						actualRs.getStore(), actualRs.getCall(), actualRs.getChecksum()));
+			}
+		}
+	}
+
+	@Test
+	public void test_immutable() throws Exception {
+		final Map<String, Object> rs = ContextHandler.fromJson(
+			"{\"items\": [{\"id\": 1, \"tags\": [\"a\", \"b\"], \"address\": {\"city\": \"city-1\"}}]}", Map.class);
+		final Map<String, Object> view = Immutable.create(rs);
+
+		assertEquals(rs, view);
+		assertSame(view, Immutable.create(view));
+		assertThrows(UnsupportedOperationException.class, () -> view.put("items", null));
+		final List<?> items = (List<?>) view.get("items");
+		assertThrows(UnsupportedOperationException.class, () -> items.remove(0));
+		final Map<String, Object> first = (Map<String, Object>) items.get(0);
+		assertThrows(UnsupportedOperationException.class, () -> first.entrySet().iterator().next().setValue(1));
+		assertThrows(UnsupportedOperationException.class, () -> ((Map<String, Object>) first.get("address")).clear());
+		assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) first.get("tags")).add("c"));
+
+		// the view is not a copy, so the changes of the underlying object are visible
+		final Map<String, Object> address = (Map<String, Object>) ((Map<String, Object>) ((List<?>) rs.get("items")).get(0)).get("address");
+		address.put("city", "city-2");
+		rs.put("total", 1);
+		assertEquals("city-2", ((Map<String, Object>) first.get("address")).get("city"));
+		assertEquals(1, view.get("total"));
+		assertEquals(2, view.size());
+
+		// non-String keys, e.g. a map created in Groovy, are iterated as they are
+		final Map<Object, Object> byId = new HashMap<>();
+		byId.put(1, "one");
+		rs.put("byId", byId);
+		final Map<?, ?> byIdView = (Map<?, ?>) view.get("byId");
+		assertEquals(byId, byIdView);
+		assertEquals(1, byIdView.entrySet().iterator().next().getKey());
+	}
+
+	// NOTE: a micro-benchmark, not asserted since the timing depends on the machine
+	@Test
+	@Tag("benchmark")
+	public void benchmark_immutable() throws Exception {
+		final StringBuilder json = new StringBuilder("{\"items\": [");
+		for (int i = 0; json.length() < 1024 * 1024; i++) {
+			json.append(i > 0 ? "," : "")
+				.append(String.format("{\"id\": %s, \"name\": \"user-%s\", \"tags\": [\"a\", \"b\"], ", i, i))
+				.append(String.format("\"address\": {\"city\": \"city-%s\", \"zip\": \"%s\"}}", i, i * 7));
+		}
+		json.append("]}");
+
+		final Map<String, Object> rs = ContextHandler.fromJson(json.toString(), Map.class);
+
+		// a deep copy (i.e. the former Immutable) vs the view, both reading one nested property
+		final int rounds = 50;
+		long copyNanos = 0, viewNanos = 0;
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			readCity(deepCopy(rs));
+			copyNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			readCity(Immutable.create(rs));
+			viewNanos += System.nanoTime() - start;
+		}
+		System.out.printf("Immutable on %s bytes x %s: deep copy = %s ms, view = %s ms%n",
+			json.length(), rounds, copyNanos / 1_000_000, viewNanos / 1_000_000);
+	}
+
+	@Test
+	public void test_suiteCache() throws Exception {
+		final Config config = new Config("artemis");
+		ALog.init(config.getName(), true);
+
+		final File dir = new File("target/suite-cache-test");
+		final File src = new File(dir, "src");
+		final File cacheDir = new File(dir, "cache");
+		deleteAll(dir);
+		assertTrue(src.mkdirs());
+
+		final SuiteCache cache = new SuiteCache(cacheDir.getPath(), config.getName());
+
+		// XML
+		final byte[] xml = "<artemis><scenario id=\"S1\"><get id=\"g1\" url=\"/x\"/></scenario></artemis>".getBytes();
+		final AtomicInteger parsed = new AtomicInteger();
+		final Function<byte[], XArtemis> parser = bytes -> {
+			parsed.incrementAndGet();
+			return new XmlLoader(scenario -> true).load(new ByteArrayInputStream(bytes));
+		};
+
+		assertEquals("S1", cache.loadSuite(xml, "", parser).getScenarios().get(0).getId());
+		final XArtemis cached = cache.loadSuite(xml, "", parser);
+		assertEquals(1, parsed.get());
+		assertEquals("g1", cached.getScenarios().get(0).getRequests().get(0).getId());
+
+		// a foreign class in the cached file is rejected before it is instantiated, so it is a miss
+		final File[] suiteFiles = cacheDir.listFiles((d, name) -> name.contains("-suite-"));
+		assertEquals(1, suiteFiles.length);
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(suiteFiles[0]))) {
+			out.writeObject(new HashMap<>(Collections.singletonMap("k", new Date())));
+		}
+		assertEquals("S1", cache.loadSuite(xml, "", parser).getScenarios().get(0).getId());
+		assertEquals(2, parsed.get());
+
+		// Groovy: the helper in the classpath is not cached, so its change is visible on a cache hit
+		final byte[] groovy = "def greeting() { Greeter.greet() + '-' + [1, 2].collect { it * 2 }.join(',') }".getBytes();
+		Files.write(new File(src, "Greeter.groovy").toPath(), "class Greeter { static String greet() { 'hello' } }".getBytes());
+		assertEquals("hello-2,4", runScript(cache, groovy, src));
+
+		final File[] groovyFiles = cacheDir.listFiles((d, name) -> name.contains("-groovy-"));
+		assertEquals(1, groovyFiles.length);
+		assertTrue(groovyFiles[0].setLastModified(1000L));
+
+		Files.write(new File(src, "Greeter.groovy").toPath(), "class Greeter { static String greet() { 'hi' } }".getBytes());
+		assertEquals("hi-2,4", runScript(cache, groovy, src));
+		assertEquals(1000L, groovyFiles[0].lastModified());
+		assertEquals(2, cacheDir.list().length);
+	}
+
 	// ------------------------------
 
+	private static String describe(List<?> list) {
+		return String.valueOf(list);
+	}
+
+	private static Object runScript(SuiteCache cache, byte[] groovy, File classpath) throws Exception {
+		try (GroovyClassLoader gcl = new GroovyClassLoader()) {
+			gcl.addClasspath(classpath.getAbsolutePath());
+			return InvokerHelper.createScript(cache.loadScript(groovy, gcl), new Binding()).invokeMethod("greeting", null);
+		}
+	}
+
+	private static void deleteAll(File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteAll(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static Object readCity(Map<String, Object> rs) {
+		final Map<?, ?> item = (Map<?, ?>) ((List<?>) rs.get("items")).get(0);
+		return ((Map<?, ?>) item.get("address")).get("city");
+	}
+
+	private static Map<String, Object> deepCopy(Map<String, Object> map) {
+		final Map<String, Object> result = new HashMap<>();
+		map.forEach((key, value) -> result.put(key, deepCopy(value)));
+		return Collections.unmodifiableMap(result);
+	}
+
+	private static Object deepCopy(Object value) {
+		if (value instanceof Map) {
+			return deepCopy((Map<String, Object>) value);
+		} else if (value instanceof List) {
+			final List<Object> result = new ArrayList<>();
+			((List<?>) value).forEach(cell -> result.add(deepCopy(cell)));
+			return Collections.unmodifiableList(result);
+		}
+		return value;
+	}
+
 	private String url(String uri, String... params) {
 		final String url = String.format("%s%s", this.url, uri);
 		return String.format(url, params);
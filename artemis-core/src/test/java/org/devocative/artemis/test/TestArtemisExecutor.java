@@ -6,8 +6,14 @@ import io.javalin.core.validation.Validator;
 import io.javalin.http.UploadedFile;
 import org.bbottema.javasocksproxyserver.SocksServer;
 import org.devocative.artemis.ArtemisExecutor;
+import org.devocative.artemis.ContextHandler;
+import org.devocative.artemis.Parallel;
 import org.devocative.artemis.TestFailedException;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.ELogOverflow;
+import org.devocative.artemis.cfg.Pool;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +22,19 @@ import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -29,6 +43,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class TestArtemisExecutor {
 	private static final Logger log = LoggerFactory.getLogger(TestArtemisExecutor.class);
+	private static final AtomicInteger SLOW_IN_FLIGHT = new AtomicInteger(0);
+	private static final AtomicInteger SLOW_PEAK = new AtomicInteger(0);
+	private static final AtomicInteger ECHO_CHECKS = new AtomicInteger(0);
 
 	@Test
 	public void test_defaultConfig() {
@@ -37,6 +54,7 @@ public class TestArtemisExecutor {
 			.addVar("parallelLogin", 3)
 			.addVar("loopLogin", 2)
 			.setBaseUrl(url)
+			.setCompileOnLoad(true)
 			.setParallel(1))
 		);
 	}
@@ -69,6 +87,212 @@ public class TestArtemisExecutor {
 		});
 	}
 
+	@Test
+	public void test_rate() {
+		startJavalin(url -> ArtemisExecutor.run(new Config()
+			.setRate(20.0)
+			.setLoop(6)
+			.setReportInterval(1)
+			.setMaxConcurrency(3)
+			.setAsyncLog(true)
+			.setLogOverflow(ELogOverflow.Drop)
+			.addVar("backEnd", url)
+			.addVar("parallelLogin", 1)
+			.addVar("loopLogin", 1)
+			.setExportDir("target/rate")
+			.setBaseUrl(url))
+		);
+
+		// 6 arrivals at 20/sec, so the last one starts at least 250 ms after the first one, and an execution takes a few
+		// seconds due to the sleeps of the XML
+		final Map<String, Object> results = readResults("target/rate/artemis-results.json");
+		final Map<String, Object> summary = (Map<String, Object>) results.get("summary");
+		assertEquals(6, summary.get("executions"));
+		assertEquals(0, summary.get("errors"));
+		assertEquals(true, summary.get("corrected"));
+		final int durationMs = (Integer) results.get("durationMs");
+		assertTrue(durationMs >= 250 && durationMs < 30_000, "durationMs = " + durationMs);
+
+		// only the first request of an execution is corrected, and by at least its measured latency
+		for (Map<String, Object> rq : (List<Map<String, Object>>) results.get("requests")) {
+			final int p99 = (Integer) rq.get("p99Us");
+			final int correctedP99 = (Integer) rq.get("correctedP99Us");
+			if ("RegisterUser.registration".equals(rq.get("id"))) {
+				assertTrue(correctedP99 >= p99, rq.toString());
+			} else {
+				assertEquals(p99, correctedP99, rq.toString());
+			}
+		}
+
+		assertThrows(RuntimeException.class, () -> ArtemisExecutor.run(new Config().setRate(0.0)));
+		assertThrows(RuntimeException.class, () -> ArtemisExecutor.run(new Config().setRate(1.0).setMaxConcurrency(0)));
+	}
+
+	@Test
+	public void test_rate_coordinatedOmission() {
+		// 10 arrivals at 20/sec to a 200 ms endpoint, one at a time, so the arrivals fall further behind their schedule
+		startJavalin(url -> ArtemisExecutor.run(new Config("artemis-slow", "artemis")
+			.setRate(20.0)
+			.setLoop(10)
+			.setMaxConcurrency(1)
+			.setExportDir("target/slow")
+			.setBaseUrl(url))
+		);
+
+		final Map<String, Object> results = readResults("target/slow/artemis-slow-results.json");
+		assertEquals(10, ((Map<String, Object>) results.get("summary")).get("executions"));
+
+		final Map<String, Object> rq = ((List<Map<String, Object>>) results.get("requests")).get(0);
+		assertEquals("Slow.slow", rq.get("id"));
+		final int p99 = (Integer) rq.get("p99Us");
+		final int correctedP99 = (Integer) rq.get("correctedP99Us");
+		// the last arrival waits about 9 * (200 - 50) ms for its turn, which only the corrected latency includes
+		assertTrue(correctedP99 > p99 + 1_000_000, rq.toString());
+	}
+
+	@Test
+	public void test_asyncEngine() {
+		// the parallel scenario ('parallelLogin') also runs as concurrent chains of each user
+		startJavalin(url -> ArtemisExecutor.run(new Config()
+			.setHttpEngine(EHttpEngine.Async)
+			.setParallel(3)
+			.addVar("backEnd", url)
+			.addVar("parallelLogin", 3)
+			.addVar("loopLogin", 2)
+			.setExportDir("target/async")
+			.setBaseUrl(url))
+		);
+
+		// each user and each of its parallel scenarios is an execution
+		final Map<String, Object> summary = (Map<String, Object>) readResults("target/async/artemis-results.json").get("summary");
+		assertEquals(3 + 3 * 3, summary.get("executions"));
+		assertEquals(0, summary.get("errors"));
+	}
+
+	@Test
+	public void test_asyncEngine_rate() {
+		// more arrivals in flight than the threads running the users, which is only possible if no thread waits for a
+		// response (the arrivals are started within 200 ms, and each one takes 200 ms)
+		final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		final int arrivals = threads * 2 + 10;
+		SLOW_PEAK.set(0);
+
+		startJavalin(url -> ArtemisExecutor.run(new Config("artemis-slow", "artemis")
+			.setHttpEngine(EHttpEngine.Async)
+			.setRate(arrivals * 5.0)
+			.setLoop(arrivals)
+			.setMaxConcurrency(arrivals)
+			.setExportDir("target/async-rate")
+			.setBaseUrl(url))
+		);
+
+		final Map<String, Object> summary = (Map<String, Object>) readResults("target/async-rate/artemis-slow-results.json").get("summary");
+		assertEquals(arrivals, summary.get("executions"));
+		assertEquals(0, summary.get("errors"));
+		assertTrue(SLOW_PEAK.get() > threads, "peak = " + SLOW_PEAK.get() + ", threads = " + threads);
+	}
+
+	@Test
+	public void test_asyncEngine_chain() {
+		// many steps of each user are completed at once by a zero sleep, so the next step is started while the previous
+		// one is still finishing, and it must see the user's latest state (otherwise the 'when' of 'check' is false)
+		final int users = 4, loops = 200;
+		ECHO_CHECKS.set(0);
+
+		startJavalin(url -> ArtemisExecutor.run(new Config("artemis-chain", "artemis")
+			.setHttpEngine(EHttpEngine.Async)
+			.setParallel(users)
+			.addVar("chainLoop", loops)
+			.setExportDir("target/async-chain")
+			.setBaseUrl(url))
+		);
+
+		final Map<String, Object> summary = (Map<String, Object>) readResults("target/async-chain/artemis-chain-results.json").get("summary");
+		assertEquals(users, summary.get("executions"));
+		assertEquals(0, summary.get("errors"));
+		assertEquals(users * loops, ECHO_CHECKS.get());
+	}
+
+	@Test
+	public void test_stages() throws InterruptedException {
+		final AtomicInteger maxActive = new AtomicInteger(0);
+		final AtomicBoolean sampling = new AtomicBoolean(true);
+		final Thread sampler = new Thread(() -> {
+			while (sampling.get()) {
+				maxActive.accumulateAndGet(Parallel.getActiveWorkers(), Math::max);
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		sampler.start();
+
+		// NOTE: on JDK 17 (i.e. the build JDK), virtual threads are only tested through their fallback to platform threads
+		startJavalin(url -> ArtemisExecutor.run(new Config()
+			.addStage("1s", 3)
+			.addStage("1s", 3)
+			.addStage("500ms", 0)
+			.setVirtualThreads(true)
+			.setPool(new Pool().setMaxTotal(2).setKeepAlive("10s"))
+			.setPerfMode(true)
+			.setSelectiveJson(true)
+			.setCacheDir("target/artemis-cache")
+			.setExportDir("target/stages")
+			.addVar("backEnd", url)
+			.addVar("parallelLogin", 1)
+			.addVar("loopLogin", 1)
+			.setBaseUrl(url))
+		);
+
+		sampling.set(false);
+		sampler.join();
+
+		// the users reach the target of the first stage, and no more
+		assertEquals(3, maxActive.get());
+		assertEquals(0, Parallel.getActiveWorkers());
+
+		final Map<String, Object> results = readResults("target/stages/artemis-results.json");
+		assertEquals(0, ((Map<String, Object>) results.get("summary")).get("errors"));
+		final Set<Object> stages = ((List<Map<String, Object>>) results.get("stages")).stream()
+			.map(stat -> stat.get("stage"))
+			.collect(Collectors.toSet());
+		// NOTE: the first responses may arrive after the first (ramp-up) stage, due to the cold start
+		assertTrue(stages.contains("02:3->3/1s"), "stages = " + stages);
+	}
+
+	@Test
+	public void test_duration() throws IOException {
+		startJavalin(url -> ArtemisExecutor.run(new Config()
+			.setDuration("1s")
+			.setParallel(2)
+			.setHttpVersion(EHttpVersion.Negotiate)
+			.addVar("backEnd", url)
+			.addVar("parallelLogin", 1)
+			.addVar("loopLogin", 1)
+			.setExportDir("target")
+			.setCacheDir("target/artemis-cache")
+			.setBaseUrl(url))
+		);
+
+		assertTrue(new File("target/artemis-results.json").exists());
+		assertTrue(new File("target/artemis-results.csv").exists());
+		assertEquals(2, new File("target/artemis-cache").list().length);
+
+		// an execution takes a few seconds due to the sleeps of the XML, so each user stops after its first one
+		final Map<String, Object> results = readResults("target/artemis-results.json");
+		final Map<String, Object> summary = (Map<String, Object>) results.get("summary");
+		assertEquals(2, summary.get("executions"));
+		assertEquals(0, summary.get("errors"));
+		final int durationMs = (Integer) results.get("durationMs");
+		assertTrue(durationMs >= 1000 && durationMs < 20_000, "durationMs = " + durationMs);
+
+		// the executions are aggregated in the JSON, and streamed one per line to the CSV
+		assertEquals(2, ((Map<String, Object>) results.get("executions")).get("count"));
+		assertEquals(3, Files.readAllLines(Paths.get("target/artemis-executions.csv")).size());
+	}
+
 	@Test
 	public void test_error() {
 		startJavalin(url -> {
@@ -94,6 +318,21 @@ public class TestArtemisExecutor {
 		});
 	}
 
+	@Test
+	public void test_checksum_mismatch() {
+		startJavalin(url -> {
+			try {
+				ArtemisExecutor.run(new Config("artemis-checksum", "artemis")
+					.setBaseUrl(url)
+					.setParallel(1));
+
+				fail();
+			} catch (TestFailedException e) {
+				assertTrue(e.getMessage().contains("Invalid RS Checksum"), e.getMessage());
+			}
+		});
+	}
+
 	@Test
 	public void test_devMode() {
 		startJavalin(url -> {
@@ -118,6 +357,21 @@ public class TestArtemisExecutor {
 				fail();
 			}
 
+			// the memorized scenario is filtered out, so it is a full run of the selected ones
+			// NOTE: the scenario of artemis-devMode.xml has no id, so it is set in the memory
+			try {
+				final String memory = new String(Files.readAllBytes(memFile.toPath()), StandardCharsets.UTF_8);
+				Files.write(memFile.toPath(), memory.replace("\"scenarioName\":null", "\"scenarioName\":\"RegisterUser\"")
+					.getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			ArtemisExecutor.run(new Config("artemis-devMode", "artemis")
+				.setDevMode(true)
+				.setOnlyScenarios(Collections.singletonList("Other"))
+				.setBaseUrl(url));
+			assertFalse(memFile.exists());
+
 			memFile.delete();
 		});
 	}
@@ -207,6 +461,38 @@ public class TestArtemisExecutor {
 		});
 	}
 
+	@Test
+	public void test_http2() {
+		startJavalin(url -> {
+			// NOTE: WireMock serves h2c (HTTP/2 with prior knowledge), and proxies to the HTTP/1.1 Javalin
+			final int h2Port = findPort();
+			final WireMockServer h2Mock = new WireMockServer(wireMockConfig().port(h2Port));
+			h2Mock.stubFor(
+				any(urlMatching(".*"))
+					.willReturn(aResponse().proxiedFrom(url))
+			);
+			h2Mock.start();
+
+			try {
+				final String h2Url = "http://127.0.0.1:" + h2Port;
+				ArtemisExecutor.run(new Config()
+					.addVar("backEnd", h2Url)
+					.addVar("parallelLogin", 1)
+					.addVar("loopLogin", 1)
+					.setBaseUrl(h2Url)
+					.setHttpVersion(EHttpVersion.Http2)
+					.setExportDir("target/h2")
+					.setParallel(2));
+
+				assertTrue(new String(Files.readAllBytes(Paths.get("target/h2/artemis-results.csv"))).contains("HTTP/2"));
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			} finally {
+				h2Mock.stop();
+			}
+		});
+	}
+
 	// ------------------------------
 
 	public static void startJavalin(Consumer<String> consumer) {
@@ -308,8 +594,35 @@ public class TestArtemisExecutor {
 					ctx.pathParam("id"), ctx.header("Authorization"), city.get(), email.get());
 
 				ctx.cookie("Cookie1", "", 0);
+			})
+			.get("/users/{id}/logo", ctx -> {
+				log("DownloadLogo - id=[{}]", ctx.pathParam("id"));
+
+				ctx
+					.contentType("image/jpeg")
+					.result(Files.readAllBytes(Paths.get("src/test/resources/picture.jpg")));
 			});
 
+		app.get("/echo/{n}", ctx -> {
+			final String n = ctx.pathParam("n");
+			if ("check".equals(n)) {
+				ECHO_CHECKS.incrementAndGet();
+				ctx.json(asMap(pair("n", n)));
+			} else {
+				ctx.json(asMap(pair("n", Integer.parseInt(n))));
+			}
+		});
+
+		app.get("/slow", ctx -> {
+			SLOW_PEAK.accumulateAndGet(SLOW_IN_FLIGHT.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(200);
+			} finally {
+				SLOW_IN_FLIGHT.decrementAndGet();
+			}
+			ctx.contentType("");
+		});
+
 		app
 			.get("/login/{cell}", ctx -> {
 				assertEquals("22", ctx.cookie("Cookie2"));
@@ -347,6 +660,14 @@ public class TestArtemisExecutor {
 		return result;
 	}
 
+	private static Map<String, Object> readResults(String file) {
+		try {
+			return ContextHandler.fromJson(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8), Map.class);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	private static void log(String str, Object... vars) {
 		log.info("--- TEST --- | " + str, vars);
 	}
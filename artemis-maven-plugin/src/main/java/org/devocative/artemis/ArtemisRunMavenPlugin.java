@@ -4,6 +4,12 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.devocative.artemis.cfg.Config;
+import org.devocative.artemis.cfg.EHttpEngine;
+import org.devocative.artemis.cfg.EHttpVersion;
+import org.devocative.artemis.cfg.ELogOverflow;
+import org.devocative.artemis.cfg.ERateOverflow;
+import org.devocative.artemis.cfg.Pool;
+import org.devocative.artemis.cfg.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,12 +47,66 @@ public class ArtemisRunMavenPlugin extends AbstractMojo {
 	@Parameter(property = "loop", defaultValue = "1")
 	private Integer loop;
 
+	@Parameter(property = "duration")
+	private String duration;
+
 	@Parameter
 	private Var[] vars;
 
 	@Parameter
 	private String proxy;
 
+	@Parameter(property = "compileOnLoad", defaultValue = "false")
+	private Boolean compileOnLoad;
+
+	@Parameter(property = "rate")
+	private Double rate;
+
+	@Parameter(property = "maxConcurrency", defaultValue = "100")
+	private Integer maxConcurrency;
+
+	@Parameter(property = "rateOverflow", defaultValue = "Delay")
+	private ERateOverflow rateOverflow;
+
+	@Parameter
+	private Stage[] stages;
+
+	@Parameter(property = "virtualThreads", defaultValue = "false")
+	private Boolean virtualThreads;
+
+	@Parameter(property = "httpVersion", defaultValue = "Http1")
+	private EHttpVersion httpVersion;
+
+	@Parameter(property = "httpEngine", defaultValue = "Classic")
+	private EHttpEngine httpEngine;
+
+	@Parameter(property = "reportInterval", defaultValue = "10")
+	private Integer reportInterval;
+
+	@Parameter(property = "exportDir")
+	private String exportDir;
+
+	@Parameter(property = "cacheDir")
+	private String cacheDir;
+
+	@Parameter
+	private Pool pool;
+
+	@Parameter(property = "selectiveJson", defaultValue = "false")
+	private Boolean selectiveJson;
+
+	@Parameter(property = "perfMode", defaultValue = "false")
+	private Boolean perfMode;
+
+	@Parameter(property = "asyncLog", defaultValue = "false")
+	private Boolean asyncLog;
+
+	@Parameter(property = "logQueueSize", defaultValue = "8192")
+	private Integer logQueueSize;
+
+	@Parameter(property = "logOverflow", defaultValue = "Block")
+	private ELogOverflow logOverflow;
+
 	// ------------------------------
 
 	@Override
@@ -75,7 +135,28 @@ public class ArtemisRunMavenPlugin extends AbstractMojo {
 			.setDevMode(devMode)
 			.setParallel(parallel)
 			.setLoop(loop)
-			.setProxy(proxy);
+			.setDuration(duration)
+			.setProxy(proxy)
+			.setCompileOnLoad(compileOnLoad)
+			.setRate(rate)
+			.setMaxConcurrency(maxConcurrency)
+			.setRateOverflow(rateOverflow)
+			.setVirtualThreads(virtualThreads)
+			.setHttpVersion(httpVersion)
+			.setHttpEngine(httpEngine)
+			.setReportInterval(reportInterval)
+			.setExportDir(exportDir)
+			.setCacheDir(cacheDir)
+			.setPool(pool)
+			.setSelectiveJson(selectiveJson)
+			.setPerfMode(perfMode)
+			.setAsyncLog(asyncLog)
+			.setLogQueueSize(logQueueSize)
+			.setLogOverflow(logOverflow);
+
+		if (stages != null) {
+			Stream.of(stages).forEach(s -> config.addStage(s.getDuration(), s.getTarget() != null ? s.getTarget() : 0));
+		}
 
 		if (vars != null) {
 			Stream.of(vars).forEach(v -> config.addVar(v.getName(), v.getValue()));